@@ -0,0 +1,98 @@
+package evolutionarycomputation;
+
+/**
+ * Seeded problem instances shared by the benchmarks, so every fork and
+ * every release measures the same items and populations
+ *
+ * @author Ziheng Cong
+ */
+
+final class BenchmarkInstances {
+    static final long SEED = 20200301L;
+    static final double CROSSOVER_RATE = 0.7;
+    static final int ELITISM_COUNT = 1;
+
+    private BenchmarkInstances() {
+    }
+
+    /**
+     * Items with volumne and benefit in 1..10, as PackagingMain draws them
+     *
+     * @param numItems
+     *             The number of items
+     * @return The catalog
+     */
+    static ItemCatalog catalog(int numItems) {
+        RandomSource random = new Xoshiro256StarStar(SEED);
+        int[] volumnes = new int[numItems];
+        int[] benefits = new int[numItems];
+        for (int item = 0; item < numItems; item++) {
+            volumnes[item] = random.nextInt(10) + 1;
+            benefits[item] = random.nextInt(10) + 1;
+        }
+        return new ItemCatalog(volumnes, benefits);
+    }
+
+    /**
+     * Strongly correlated items, volumne in 1..1000 and benefit a little
+     * above it. The ratios are nearly equal, the hard case for
+     * branch-and-bound.
+     *
+     * @param numItems
+     *             The number of items
+     * @return The catalog
+     */
+    static ItemCatalog correlatedCatalog(int numItems) {
+        RandomSource random = new Xoshiro256StarStar(SEED);
+        int[] volumnes = new int[numItems];
+        int[] benefits = new int[numItems];
+        for (int item = 0; item < numItems; item++) {
+            volumnes[item] = random.nextInt(1000) + 1;
+            benefits[item] = volumnes[item] + random.nextInt(100);
+        }
+        return new ItemCatalog(volumnes, benefits);
+    }
+
+    /**
+     * Catalog by kind name, as the benchmarks' instance parameter gives it
+     *
+     * @param kind
+     *             "uncorrelated" or "correlated"
+     * @param numItems
+     *             The number of items
+     * @return The catalog
+     */
+    static ItemCatalog catalog(String kind, int numItems) {
+        return kind.equals("correlated") ? correlatedCatalog(numItems) : catalog(numItems);
+    }
+
+    /**
+     * Half the total volumne, so about half of the random individuals fit
+     *
+     * @param catalog
+     *             The item catalog
+     * @return The knapsack capacity
+     */
+    static int capacity(ItemCatalog catalog) {
+        return (int) (catalog.getTotalVolumne() / 2);
+    }
+
+    /**
+     * A seeded, single-threaded GA keeping no generation history
+     */
+    static GeneticAlgorithm geneticAlgorithm(ItemCatalog catalog, int populationSize, double mutationRate) {
+        GeneticAlgorithm ga = new GeneticAlgorithm(populationSize, mutationRate, CROSSOVER_RATE, ELITISM_COUNT,
+                capacity(catalog), Integer.MAX_VALUE, catalog, catalog.size(), SEED);
+        ga.setGenerationHistory(GenerationHistory.none(false));
+        return ga;
+    }
+
+    /**
+     * An evaluated random population
+     */
+    static Population population(GeneticAlgorithm ga, ItemCatalog catalog) {
+        Population population = ga.initPopulation(catalog.size());
+        ga.evalPopulation(population);
+        return population;
+    }
+}
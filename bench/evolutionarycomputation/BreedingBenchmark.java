@@ -0,0 +1,61 @@
+package evolutionarycomputation;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of the variation operators on a whole population
+ *
+ * mutatePopulation changes the individuals it is given, so the population
+ * keeps drifting between invocations. With random genes that does not
+ * change the work done per call.
+ *
+ * @author Ziheng Cong
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BreedingBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int numItems;
+
+    @Param({"100", "1000"})
+    public int populationSize;
+
+    @Param({"0.001", "0.01", "0.1"})
+    public double mutationRate;
+
+    private GeneticAlgorithm ga;
+    private Population population;
+
+    @Setup
+    public void setUp() {
+        ItemCatalog catalog = BenchmarkInstances.catalog(this.numItems);
+        this.ga = BenchmarkInstances.geneticAlgorithm(catalog, this.populationSize, this.mutationRate);
+        this.population = BenchmarkInstances.population(this.ga, catalog);
+    }
+
+    @Benchmark
+    public Population crossoverPopuation() {
+        return this.ga.crossoverPopuation(this.population);
+    }
+
+    @Benchmark
+    public Population mutatePopulation() {
+        return this.ga.mutatePopulation(this.population);
+    }
+}
@@ -0,0 +1,82 @@
+package evolutionarycomputation;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of evaluating one individual and a whole population
+ *
+ * @author Ziheng Cong
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class EvaluationBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int numItems;
+
+    @Param({"100", "1000"})
+    public int populationSize;
+
+    private ItemCatalog catalog;
+    private GeneticAlgorithm ga;
+    private Population population;
+    private Individual individual;
+
+    @Setup
+    public void setUp() {
+        this.catalog = BenchmarkInstances.catalog(this.numItems);
+        this.ga = BenchmarkInstances.geneticAlgorithm(this.catalog, this.populationSize, 0.001);
+        this.population = BenchmarkInstances.population(this.ga, this.catalog);
+        this.individual = this.population.getIndividual(0);
+    }
+
+    @Benchmark
+    public int calculateAndSetFitness() {
+        this.individual.calculateAndSetFitness(this.catalog);
+        return this.individual.getFitness();
+    }
+
+    @Benchmark
+    public int calculateAndSetVolumne() {
+        this.individual.calculateAndSetVolumne(this.catalog);
+        return this.individual.getVolume();
+    }
+
+    /**
+     * Full evaluation pass: the cached sums are dropped first so no delta applies
+     */
+    @Benchmark
+    public int evaluate() {
+        this.individual.invalidateEvaluation();
+        this.individual.evaluate(this.catalog);
+        return this.individual.getFitness();
+    }
+
+    /**
+     * Every individual plus the normalised fitness, as evalPopulation runs it
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public double evalPopulation() {
+        for (Individual member : this.population.getIndividuals()) {
+            member.invalidateEvaluation();
+        }
+        this.ga.evalPopulation(this.population);
+        return this.population.getPopulationFitness();
+    }
+}
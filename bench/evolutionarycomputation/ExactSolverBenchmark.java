@@ -0,0 +1,58 @@
+package evolutionarycomputation;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to an optimal solution: the dynamic programming value alone, with
+ * Hirschberg reconstruction, and branch-and-bound
+ *
+ * @author Ziheng Cong
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class ExactSolverBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int numItems;
+
+    @Param({"uncorrelated", "correlated"})
+    public String instance;
+
+    private ExactSolver solver;
+
+    @Setup
+    public void setUp() {
+        ItemCatalog catalog = BenchmarkInstances.catalog(this.instance, this.numItems);
+        this.solver = new ExactSolver(catalog, BenchmarkInstances.capacity(catalog));
+    }
+
+    @Benchmark
+    public int optimalBenefit() {
+        return this.solver.optimalBenefit();
+    }
+
+    @Benchmark
+    public Individual dynamicProgramming() {
+        return this.solver.solveByDynamicProgramming();
+    }
+
+    @Benchmark
+    public Individual branchAndBound() {
+        return this.solver.solveByBranchAndBound();
+    }
+}
@@ -0,0 +1,57 @@
+package evolutionarycomputation;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Generations per second of the whole loop: selection, crossover,
+ * mutation and evaluation. This is the number to track across releases.
+ *
+ * @author Ziheng Cong
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class GenerationBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int numItems;
+
+    @Param({"100", "1000"})
+    public int populationSize;
+
+    @Param({"0.001", "0.01", "0.1"})
+    public double mutationRate;
+
+    private GeneticAlgorithm ga;
+    private Population population;
+
+    @Setup
+    public void setUp() {
+        ItemCatalog catalog = BenchmarkInstances.catalog(this.numItems);
+        this.ga = BenchmarkInstances.geneticAlgorithm(catalog, this.populationSize, this.mutationRate);
+        this.population = BenchmarkInstances.population(this.ga, catalog);
+    }
+
+    /**
+     * One generation, continuing from the previous one as a real run does
+     */
+    @Benchmark
+    public Population nextGeneration() {
+        this.population = this.ga.nextGeneration(this.population);
+        return this.population;
+    }
+}
@@ -0,0 +1,121 @@
+package evolutionarycomputation;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time-to-gap points: each run is given a budget and reports both how long
+ * it took and how far its best solution is from the optimum, in percent.
+ * Running over the budget values gives one curve per method.
+ *
+ * The GA gets budget generations, plain and with greedy repair.
+ * Branch-and-bound gets budget x populationSize nodes, about as many as the
+ * GA evaluates. The optimum comes from dynamic programming in the setup.
+ *
+ * Each measurement is a single run, so the gap counter of an iteration is
+ * the gap of that run.
+ *
+ * @author Ziheng Cong
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class OptimalityGapBenchmark {
+    @Param({"1000", "10000"})
+    public int numItems;
+
+    @Param({"uncorrelated", "correlated"})
+    public String instance;
+
+    @Param({"10", "100", "1000"})
+    public int budget;
+
+    @Param({"100"})
+    public int populationSize;
+
+    private ItemCatalog catalog;
+    private int capacity;
+    private int optimum;
+
+    /**
+     * Distance of the run's best fitness from the optimum
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Gap {
+        public double gapPercent;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.gapPercent = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        this.catalog = BenchmarkInstances.catalog(this.instance, this.numItems);
+        this.capacity = BenchmarkInstances.capacity(this.catalog);
+        this.optimum = new ExactSolver(this.catalog, this.capacity).optimalBenefit();
+    }
+
+    @Benchmark
+    public Individual geneticAlgorithm(Gap gap) {
+        return this.runGeneticAlgorithm(false, gap);
+    }
+
+    @Benchmark
+    public Individual repairedGeneticAlgorithm(Gap gap) {
+        return this.runGeneticAlgorithm(true, gap);
+    }
+
+    @Benchmark
+    public Individual branchAndBound(Gap gap) {
+        ExactSolver solver = new ExactSolver(this.catalog, this.capacity);
+        Individual best = solver.solveByBranchAndBound((long) this.budget * this.populationSize);
+        gap.gapPercent = this.gapPercent(best.getFitness());
+        return best;
+    }
+
+    /**
+     * A seeded run from its first population, best fitness over all generations
+     */
+    private Individual runGeneticAlgorithm(boolean repair, Gap gap) {
+        GeneticAlgorithm ga = new GeneticAlgorithm(this.populationSize, 1.0 / this.numItems,
+                BenchmarkInstances.CROSSOVER_RATE, BenchmarkInstances.ELITISM_COUNT, this.capacity,
+                Integer.MAX_VALUE, this.catalog, this.numItems, BenchmarkInstances.SEED);
+        ga.setGenerationHistory(GenerationHistory.none(false));
+        if (repair) {
+            ga.setGreedyRepair(new GreedyRepair(this.catalog, this.capacity, true));
+        }
+        Population population = BenchmarkInstances.population(ga, this.catalog);
+        Individual best = new Individual(population.getFittest(0));
+        for (int generation = 0; generation < this.budget; generation++) {
+            population = ga.nextGeneration(population);
+            if (population.getFittest(0).getFitness() > best.getFitness()) {
+                best = new Individual(population.getFittest(0));
+            }
+        }
+        gap.gapPercent = this.gapPercent(best.getFitness());
+        return best;
+    }
+
+    private double gapPercent(int fitness) {
+        return this.optimum == 0 ? 0.0 : 100.0 * (this.optimum - fitness) / this.optimum;
+    }
+}
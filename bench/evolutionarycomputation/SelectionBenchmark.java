@@ -0,0 +1,72 @@
+package evolutionarycomputation;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of ranking and parent selection
+ *
+ * @author Ziheng Cong
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SelectionBenchmark {
+    @Param({"100", "1000"})
+    public int numItems;
+
+    @Param({"10", "100", "1000"})
+    public int populationSize;
+
+    private GeneticAlgorithm ga;
+    private Population population;
+
+    @Setup
+    public void setUp() {
+        ItemCatalog catalog = BenchmarkInstances.catalog(this.numItems);
+        this.ga = BenchmarkInstances.geneticAlgorithm(catalog, this.populationSize, 0.001);
+        this.population = BenchmarkInstances.population(this.ga, catalog);
+    }
+
+    /**
+     * Fittest individual with the ranking already cached
+     */
+    @Benchmark
+    public Individual getFittest() {
+        return this.population.getFittest(0);
+    }
+
+    /**
+     * Fittest individual after the ranking was invalidated, so it is rebuilt
+     */
+    @Benchmark
+    public Individual getFittestAfterChange() {
+        this.population.invalidateRanking();
+        return this.population.getFittest(0);
+    }
+
+    @Benchmark
+    public Individual selectParent() {
+        return this.ga.selectParent(this.population);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Population selectParentPopulation() {
+        return this.ga.selectParentPopulation(this.population);
+    }
+}
@@ -0,0 +1,65 @@
+package evolutionarycomputation;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event carrying one GenerationMetrics, committed by
+ * JfrEvolutionListener
+ *
+ * @author Ziheng Cong
+ */
+
+@Name("evolutionarycomputation.Generation")
+@Label("Generation")
+@Category("Evolutionary Computation")
+@Description("Phase timings and fitness statistics of one bred generation")
+final class GenerationEvent extends Event {
+    @Label("Generation")
+    int generation;
+
+    @Label("Selection")
+    @Timespan(Timespan.NANOSECONDS)
+    long selection;
+
+    @Label("Crossover")
+    @Timespan(Timespan.NANOSECONDS)
+    long crossover;
+
+    @Label("Mutation")
+    @Timespan(Timespan.NANOSECONDS)
+    long mutation;
+
+    @Label("Evaluation")
+    @Timespan(Timespan.NANOSECONDS)
+    long evaluation;
+
+    @Label("Evaluations")
+    int evaluations;
+
+    @Label("Evaluations per Second")
+    double evaluationsPerSecond;
+
+    @Label("Allocated")
+    @Description("Bytes allocated by the evolving thread, -1 if unknown")
+    @DataAmount(DataAmount.BYTES)
+    long allocated;
+
+    @Label("Best Fitness")
+    int bestFitness;
+
+    @Label("Mean Fitness")
+    double meanFitness;
+
+    @Label("Worst Fitness")
+    int worstFitness;
+
+    @Label("Diversity")
+    @Description("Mean pairwise Hamming distance over the chromosome length, NaN when not sampled")
+    double diversity;
+}
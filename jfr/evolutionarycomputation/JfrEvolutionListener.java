@@ -0,0 +1,38 @@
+package evolutionarycomputation;
+
+/**
+ * Listener committing an evolutionarycomputation.Generation event to Java
+ * Flight Recorder for every generation. While no recording enables the
+ * event, the cost is one allocation and one check per generation.
+ *
+ * jdk.jfr is not part of the Java 8 API, so this class and GenerationEvent
+ * live in jfr/ and are compiled for Java 11 after the Java 8 sources, into
+ * the same classes directory. Load it by name, as PackagingMain does, so
+ * an older runtime or one without jdk.jfr simply goes without it.
+ *
+ * @author Ziheng Cong
+ */
+
+public class JfrEvolutionListener implements EvolutionListener {
+    @Override
+    public void generationCompleted(GenerationMetrics metrics) {
+        GenerationEvent event = new GenerationEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+        GenerationSummary summary = metrics.getSummary();
+        event.generation = summary.getGeneration();
+        event.selection = metrics.getSelectionNanos();
+        event.crossover = metrics.getCrossoverNanos();
+        event.mutation = metrics.getMutationNanos();
+        event.evaluation = metrics.getEvaluationNanos();
+        event.evaluations = metrics.getEvaluations();
+        event.evaluationsPerSecond = metrics.getEvaluationsPerSecond();
+        event.allocated = metrics.getAllocatedBytes();
+        event.bestFitness = summary.getBestFitness();
+        event.meanFitness = summary.getMeanFitness();
+        event.worstFitness = summary.getWorstFitness();
+        event.diversity = summary.getDiversity();
+        event.commit();
+    }
+}
@@ -0,0 +1,46 @@
+package evolutionarycomputation;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Bytes allocated by the current thread, read from the HotSpot extension
+ * of ThreadMXBean where the JVM provides it
+ *
+ * @author Ziheng Cong
+ */
+
+final class AllocationCounter {
+    private static final com.sun.management.ThreadMXBean THREADS = lookup(); // Null when unsupported
+
+    private AllocationCounter() {
+    }
+
+    private static com.sun.management.ThreadMXBean lookup() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+        try {
+            if (!hotspot.isThreadAllocatedMemorySupported()) {
+                return null;
+            }
+            if (!hotspot.isThreadAllocatedMemoryEnabled()) {
+                hotspot.setThreadAllocatedMemoryEnabled(true);
+            }
+            return hotspot;
+        } catch (UnsupportedOperationException | SecurityException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Get the bytes the current thread has allocated so far
+     *
+     * @return The allocated bytes, -1 if the JVM cannot measure them
+     */
+    static long currentThread() {
+        return THREADS == null ? -1 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
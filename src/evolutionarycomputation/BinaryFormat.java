@@ -0,0 +1,330 @@
+package evolutionarycomputation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * Versioned binary files for instances and checkpoints, read through
+ * FileChannel.map.
+ *
+ * All values are little-endian, and every column starts on an 8-byte
+ * boundary. A column is then a single bulk copy out of the mapped file
+ * into the int[] or long[] the engine works on. No parsing and no per-item
+ * objects are involved.
+ *
+ * Instance file, version 1:
+ * <pre>
+ *  0  int   magic "KCAT"
+ *  4  int   version
+ *  8  int   item count n
+ * 12  int   knapsack capacity
+ * 16  long  known optimum, -1 when unknown
+ * 24  int[n] volumnes, int[n] benefits
+ * </pre>
+ *
+ * Checkpoint file, version 1:
+ * <pre>
+ *  0  int   magic "KCHK"
+ *  4  int   version
+ *  8  int   generation
+ * 12  int   population size p
+ * 16  int   chromosome length L
+ * 20  int   knapsack capacity
+ * 24  long  catalog fingerprint
+ * 32  int   random state words s
+ * 36  int   breeding streams k
+ * 40  long[s] random state, long[k * s] breeding stream states
+ *     int[p] fitness, int[p] volumne, int[p] first slot sharing the same
+ *     chromosome storage, padded to 8 bytes
+ *     long[p * ceil(L / 64)] chromosome words
+ * </pre>
+ *
+ * Selection gives each slot its own individual, but a parent drawn several
+ * times shares its chromosome storage copy-on-write between those slots.
+ * The checkpoint records which slots share storage, so a resumed population
+ * shares the same chromosomes and copies no more than the original run
+ * would have. Sharing never changes the genes bred, only memory use.
+ *
+ * @author Ziheng Cong
+ */
+
+public final class BinaryFormat {
+    static final int INSTANCE_MAGIC = 0x5441434B; // "KCAT" in file byte order
+    static final int CHECKPOINT_MAGIC = 0x4B48434B; // "KCHK" in file byte order
+    static final int VERSION = 1;
+    private static final int INSTANCE_HEADER = 24;
+    private static final int CHECKPOINT_HEADER = 40;
+
+    private BinaryFormat() {
+    }
+
+    /**
+     * The state a checkpoint restores
+     */
+    static final class Checkpoint {
+        int generation;
+        int knapsackCapacity;
+        long[] randomState;
+        long[][] streamStates;
+        Population population;
+    }
+
+    /**
+     * Write an instance file
+     *
+     * @param file
+     *          The file to write, replaced if it exists
+     * @param instance
+     *          The instance
+     */
+    public static void writeInstance(Path file, KnapsackInstance instance) throws IOException {
+        ItemCatalog catalog = instance.getCatalog();
+        int count = catalog.size();
+        ByteBuffer buffer = allocate(INSTANCE_HEADER + 8L * count);
+        buffer.putInt(INSTANCE_MAGIC).putInt(VERSION).putInt(count).putInt(instance.getKnapsackCapacity())
+              .putLong(instance.getOptimum().orElse(-1));
+        buffer.asIntBuffer().put(catalog.volumnes()).put(catalog.benefits());
+        buffer.position(buffer.capacity());
+        writeAtomically(file, buffer);
+    }
+
+    /**
+     * Read an instance file
+     *
+     * @param file
+     *          The instance file
+     * @return The instance, named after the file
+     */
+    public static KnapsackInstance readInstance(Path file) throws IOException {
+        MappedByteBuffer map = map(file);
+        checkHeader(file, map, INSTANCE_MAGIC, INSTANCE_HEADER);
+        int count = map.getInt(8);
+        int capacity = map.getInt(12);
+        long optimum = map.getLong(16);
+        if (count < 0 || map.capacity() != INSTANCE_HEADER + 8L * count) {
+            throw new IOException(file + ": truncated or corrupt instance file");
+        }
+        int[] volumnes = new int[count];
+        int[] benefits = new int[count];
+        map.position(INSTANCE_HEADER);
+        map.asIntBuffer().get(volumnes).get(benefits);
+        return new KnapsackInstance(String.valueOf(file.getFileName()), ItemCatalog.wrap(volumnes, benefits),
+                                    capacity, optimum < 0 ? OptionalLong.empty() : OptionalLong.of(optimum));
+    }
+
+    /**
+     * Whether a file starts like an instance file
+     */
+    static boolean isInstanceFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (magic.hasRemaining() && channel.read(magic) > 0) {
+                // Fill the four bytes
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == INSTANCE_MAGIC;
+        }
+    }
+
+    /**
+     * Write a checkpoint. The file is replaced only once the new one is
+     * complete, so a crash while writing leaves the previous checkpoint.
+     *
+     * @param file
+     *          The checkpoint file
+     * @param generation
+     *          The generation of the population
+     * @param population
+     *          The evaluated population
+     * @param catalog
+     *          The items the population was evaluated against
+     * @param knapsackCapacity
+     *          The knapsack capacity
+     * @param random
+     *          The random source of the operators
+     * @param streams
+     *          The parallel breeding streams, may be empty
+     */
+    static void writeCheckpoint(Path file, int generation, Population population, ItemCatalog catalog,
+                                int knapsackCapacity, RandomSource random, RandomSource[] streams) throws IOException {
+        int size = population.size();
+        int length = size == 0 ? 0 : population.getIndividual(0).getChromosomeLength();
+        int words = Individual.wordCount(length);
+        long[] randomState = random.getState();
+        int stateWords = randomState.length;
+        long bytes = CHECKPOINT_HEADER + 8L * stateWords * (1 + streams.length)
+                     + pad8(12L * size) + 8L * size * words;
+        ByteBuffer buffer = allocate(bytes);
+        buffer.putInt(CHECKPOINT_MAGIC).putInt(VERSION).putInt(generation).putInt(size).putInt(length)
+              .putInt(knapsackCapacity).putLong(fingerprint(catalog)).putInt(stateWords).putInt(streams.length);
+        buffer.asLongBuffer().put(randomState);
+        buffer.position(buffer.position() + 8 * stateWords);
+        for (RandomSource stream : streams) {
+            if (stream.getState().length != stateWords) {
+                throw new IllegalArgumentException("breeding streams differ from the random source");
+            }
+            buffer.asLongBuffer().put(stream.getState());
+            buffer.position(buffer.position() + 8 * stateWords);
+        }
+        for (int i = 0; i < size; i++) {
+            buffer.putInt(population.getIndividual(i).getFitness());
+        }
+        for (int i = 0; i < size; i++) {
+            buffer.putInt(population.getIndividual(i).getVolume());
+        }
+        Map<long[], Integer> firstSlot = new IdentityHashMap<long[], Integer>();
+        for (int i = 0; i < size; i++) {
+            Integer first = firstSlot.putIfAbsent(population.getIndividual(i).getChromosomeWords(), i);
+            buffer.putInt(first == null ? i : first);
+        }
+        buffer.position((int) pad8(buffer.position()));
+        for (int i = 0; i < size; i++) {
+            Individual individual = population.getIndividual(i);
+            if (individual.getChromosomeLength() != length) {
+                throw new IllegalArgumentException("individuals differ in chromosome length");
+            }
+            buffer.asLongBuffer().put(individual.getChromosomeWords());
+            buffer.position(buffer.position() + 8 * words);
+        }
+        writeAtomically(file, buffer);
+    }
+
+    /**
+     * Read a checkpoint written for the same items
+     *
+     * @param file
+     *          The checkpoint file
+     * @param catalog
+     *          The items of the run being resumed
+     * @return The restored state
+     */
+    static Checkpoint readCheckpoint(Path file, ItemCatalog catalog) throws IOException {
+        MappedByteBuffer map = map(file);
+        checkHeader(file, map, CHECKPOINT_MAGIC, CHECKPOINT_HEADER);
+        Checkpoint checkpoint = new Checkpoint();
+        checkpoint.generation = map.getInt(8);
+        int size = map.getInt(12);
+        int length = map.getInt(16);
+        checkpoint.knapsackCapacity = map.getInt(20);
+        int stateWords = map.getInt(32);
+        int streamCount = map.getInt(36);
+        if (map.getLong(24) != fingerprint(catalog) || length != catalog.size()) {
+            throw new IOException(file + ": checkpoint was written for different items");
+        }
+        int words = Individual.wordCount(length);
+        if (size < 0 || stateWords < 0 || streamCount < 0 || map.capacity() != CHECKPOINT_HEADER
+                + 8L * stateWords * (1 + streamCount) + pad8(12L * size) + 8L * size * words) {
+            throw new IOException(file + ": truncated or corrupt checkpoint");
+        }
+
+        map.position(CHECKPOINT_HEADER);
+        checkpoint.randomState = new long[stateWords];
+        map.asLongBuffer().get(checkpoint.randomState);
+        map.position(map.position() + 8 * stateWords);
+        checkpoint.streamStates = new long[streamCount][stateWords];
+        for (long[] state : checkpoint.streamStates) {
+            map.asLongBuffer().get(state);
+            map.position(map.position() + 8 * stateWords);
+        }
+        int[] fitness = new int[size];
+        int[] volumnes = new int[size];
+        int[] firstSlot = new int[size];
+        map.asIntBuffer().get(fitness).get(volumnes).get(firstSlot);
+        map.position((int) pad8(map.position() + 12L * size));
+
+        Population population = new Population(size, checkpoint.knapsackCapacity);
+        long[] chromosome = new long[words];
+        for (int i = 0; i < size; i++) {
+            map.asLongBuffer().get(chromosome);
+            map.position(map.position() + 8 * words);
+            if (firstSlot[i] < 0 || firstSlot[i] > i) {
+                throw new IOException(file + ": corrupt slot sharing");
+            }
+            Individual individual = firstSlot[i] < i
+                    ? population.getIndividual(firstSlot[i]).share()
+                    : new Individual(chromosome, length, checkpoint.knapsackCapacity);
+            individual.setFitness(fitness[i]);
+            individual.setVolume(volumnes[i]);
+            population.setIndividual(i, individual);
+        }
+        population.updateFromStoredFitness();
+        checkpoint.population = population;
+        return checkpoint;
+    }
+
+    /**
+     * Hash of every item, so a checkpoint is not resumed against other items
+     */
+    static long fingerprint(ItemCatalog catalog) {
+        long hash = catalog.size();
+        int[] volumnes = catalog.volumnes();
+        int[] benefits = catalog.benefits();
+        for (int item = 0; item < volumnes.length; item++) {
+            hash = SplitMix64.mix(hash ^ ((long) volumnes[item] << 32 | (benefits[item] & 0xFFFFFFFFL)));
+        }
+        return hash;
+    }
+
+    private static long pad8(long offset) {
+        return (offset + 7) & ~7L;
+    }
+
+    private static ByteBuffer allocate(long bytes) {
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("file of " + bytes + " bytes is too large");
+        }
+        return ByteBuffer.allocate((int) bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + ": file is too large");
+            }
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            return map;
+        }
+    }
+
+    private static void checkHeader(Path file, ByteBuffer map, int magic, int headerSize) throws IOException {
+        if (map.capacity() < headerSize || map.getInt(0) != magic) {
+            throw new IOException(file + ": not a " + (magic == INSTANCE_MAGIC ? "instance" : "checkpoint") + " file");
+        }
+        if (map.getInt(4) != VERSION) {
+            throw new IOException(file + ": unsupported version " + map.getInt(4));
+        }
+    }
+
+    /**
+     * Write to a temporary file next to the target, then move it over the target
+     */
+    private static void writeAtomically(Path file, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        Path absolute = file.toAbsolutePath();
+        Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        try {
+            Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
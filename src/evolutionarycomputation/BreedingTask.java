@@ -0,0 +1,72 @@
+package evolutionarycomputation;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fills the slots of a new population on a ForkJoinPool. The slots are cut
+ * into fixed chunks of CHUNK_SIZE and chunk c always draws from stream c, so
+ * the offspring depend on the seed only and not on how many workers run.
+ *
+ * @author Ziheng Cong
+ */
+
+class BreedingTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    static final int CHUNK_SIZE = 64; // Slots bred with one random stream
+
+    /**
+     * Breeds the slots [from, to) of the new population
+     */
+    interface Range {
+        void breed(int from, int to, RandomSource random);
+    }
+
+    private final Range range;
+    private final RandomSource[] streams;
+    private final int firstChunk;
+    private final int lastChunk; // Exclusive
+    private final int size;
+
+    /**
+     * @param range
+     *             The breeding applied to each chunk
+     * @param streams
+     *             One random stream per chunk
+     * @param firstChunk
+     *             The first chunk of the task
+     * @param lastChunk
+     *             The chunk after the last one of the task
+     * @param size
+     *             The number of slots in the population
+     */
+    BreedingTask(Range range, RandomSource[] streams, int firstChunk, int lastChunk, int size) {
+        this.range = range;
+        this.streams = streams;
+        this.firstChunk = firstChunk;
+        this.lastChunk = lastChunk;
+        this.size = size;
+    }
+
+    /**
+     * Number of chunks needed for a population
+     *
+     * @param size
+     *          The number of slots in the population
+     * @return The number of chunks
+     */
+    static int chunkCount(int size) {
+        return (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    }
+
+    @Override
+    protected void compute() {
+        if (this.lastChunk - this.firstChunk == 1) {
+            int from = this.firstChunk * CHUNK_SIZE;
+            this.range.breed(from, Math.min(from + CHUNK_SIZE, this.size), this.streams[this.firstChunk]);
+            return;
+        }
+        int mid = (this.firstChunk + this.lastChunk) >>> 1;
+        invokeAll(new BreedingTask(this.range, this.streams, this.firstChunk, mid, this.size),
+                  new BreedingTask(this.range, this.streams, mid, this.lastChunk, this.size));
+    }
+}
@@ -0,0 +1,439 @@
+package evolutionarycomputation;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Island model spread over processes: every island runs the
+ * GeneticAlgorithm loop of an IslandProcess in its own JVM, and this class
+ * is the coordinator they connect to over NIO socket channels.
+ *
+ * The coordinator hands each island its settings and items, relays migrant
+ * frames along the topology and keeps the best individual reported by any
+ * island. It is a single non-blocking selector loop. Each connection has a
+ * bounded outbound queue that drops its oldest frame when full. A slow
+ * island therefore loses stale migrants but never holds up the
+ * coordinator or the other islands.
+ *
+ * run() spawns the islands as local JVMs on loopback. Islands on other
+ * hosts can instead be started by hand with IslandProcess host port id
+ * after start(), then awaited with coordinate().
+ *
+ * @author Ziheng Cong
+ */
+
+public class DistributedIslandRunner {
+    private static final int MAX_QUEUED_FRAMES = 64; // Outbound frames per island before the oldest is dropped
+
+    private final int islandCount;
+    private final int populationSize;
+    private final double mutationRate;
+    private final double crossoverRate;
+    private final int elitismCount;
+    private final int knapsackCapacity;
+    private final ItemCatalog catalog;
+    private final long seed;
+    private final IslandModel.Topology topology;
+    private final int migrationInterval;
+    private final int migrantCount;
+    private final int generations;
+
+    private ServerSocketChannel server;
+    private Selector selector;
+    private final Connection[] islands; // Indexed by island id once HELLO has arrived
+    private Individual best;
+    private int bestIsland = -1;
+    private long droppedFrames = 0;
+
+    /**
+     * Per-connection buffers
+     */
+    private static final class Connection {
+        final SocketChannel channel;
+        final MigrantCodec.FrameReader reader = new MigrantCodec.FrameReader();
+        final ArrayDeque<ByteBuffer> outbound = new ArrayDeque<ByteBuffer>();
+        int island = -1;
+        boolean done = false;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * @param islandCount
+     *             The number of island processes
+     * @param populationSize
+     *             The number of individuals on each island
+     * @param mutationRate
+     *             The mutation rate of the population
+     * @param crossoverRate
+     *             The crossover rate of the population
+     * @param elitismCount
+     *             The strongest individuals in the population
+     * @param knapsackCapacity
+     *             The size and constrain of the population
+     * @param catalog
+     *             The item catalog which stores benefit & volumne
+     * @param seed
+     *             The seed every island's seed is drawn from
+     * @param topology
+     *             Which islands receive an island's migrants
+     * @param migrationInterval
+     *             Generations between two migrations
+     * @param migrantCount
+     *             Individuals sent per migration
+     * @param generations
+     *             The generations each island runs
+     */
+    public DistributedIslandRunner(int islandCount, int populationSize, double mutationRate, double crossoverRate,
+                                   int elitismCount, int knapsackCapacity, ItemCatalog catalog, long seed,
+                                   IslandModel.Topology topology, int migrationInterval, int migrantCount, int generations) {
+        if (islandCount < 1 || migrationInterval < 1) {
+            throw new IllegalArgumentException("need at least one island and a migration interval of at least 1");
+        }
+        this.islandCount = islandCount;
+        this.populationSize = populationSize;
+        this.mutationRate = mutationRate;
+        this.crossoverRate = crossoverRate;
+        this.elitismCount = elitismCount;
+        this.knapsackCapacity = knapsackCapacity;
+        this.catalog = catalog;
+        this.seed = seed;
+        this.topology = topology;
+        this.migrationInterval = migrationInterval;
+        this.migrantCount = migrantCount;
+        this.generations = generations;
+        this.islands = new Connection[islandCount];
+    }
+
+    /**
+     * Start the coordinator, spawn the islands as local JVMs and wait for them
+     *
+     * @param timeoutMillis
+     *             How long to wait for every island to finish
+     * @return The best individual reported by any island
+     */
+    public Individual run(long timeoutMillis) throws IOException, InterruptedException {
+        InetSocketAddress address = this.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        List<Process> processes = new ArrayList<Process>();
+        try {
+            String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            for (int island = 0; island < this.islandCount; island++) {
+                ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                        IslandProcess.class.getName(), address.getHostString(),
+                        Integer.toString(address.getPort()), Integer.toString(island));
+                builder.inheritIO();
+                processes.add(builder.start());
+            }
+            return this.coordinate(timeoutMillis);
+        } finally {
+            for (Process process : processes) {
+                process.destroy();
+            }
+            for (Process process : processes) {
+                process.waitFor();
+            }
+        }
+    }
+
+    /**
+     * Open the coordinator socket
+     *
+     * @param bindAddress
+     *             Where islands connect, port 0 picks a free port
+     * @return The address actually bound
+     */
+    public InetSocketAddress start(InetSocketAddress bindAddress) throws IOException {
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        this.server.bind(bindAddress);
+        this.server.configureBlocking(false);
+        this.server.register(this.selector, SelectionKey.OP_ACCEPT);
+        return (InetSocketAddress) this.server.getLocalAddress();
+    }
+
+    /**
+     * Serve the islands until every one has reported DONE, or the timeout.
+     * Closes the coordinator socket before returning.
+     *
+     * @param timeoutMillis
+     *             How long to wait for every island to finish
+     * @return The best individual reported by any island, null if none reported
+     */
+    public Individual coordinate(long timeoutMillis) throws IOException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        try {
+            while (!this.allDone()) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    break;
+                }
+                this.selector.select(Math.min(remaining, 100));
+                Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (key.isAcceptable()) {
+                            this.accept();
+                        } else {
+                            Connection connection = (Connection) key.attachment();
+                            if (key.isReadable()) {
+                                this.read(key, connection);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                this.flush(key, connection);
+                            }
+                        }
+                    } catch (IOException | IllegalStateException | IllegalArgumentException
+                            | BufferUnderflowException e) {
+                        if (key.channel() == this.server) {
+                            continue; // A failed accept keeps listening, the other islands may still connect
+                        }
+                        // A failed island, or one sending malformed frames, is dropped, the others keep running
+                        key.cancel();
+                        key.channel().close();
+                    }
+                }
+            }
+        } finally {
+            this.selector.close();
+            this.server.close();
+            for (Connection connection : this.islands) {
+                if (connection != null) {
+                    connection.channel.close();
+                }
+            }
+        }
+        return this.best;
+    }
+
+    private boolean allDone() {
+        for (Connection connection : this.islands) {
+            if (connection == null || (!connection.done && connection.channel.isOpen())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = this.server.accept();
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            channel.register(this.selector, SelectionKey.OP_READ, new Connection(channel));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void read(SelectionKey key, Connection connection) throws IOException {
+        boolean open = connection.reader.read(connection.channel);
+        ByteBuffer frame;
+        while ((frame = connection.reader.next()) != null) {
+            this.handle(connection, frame);
+        }
+        if (!open) {
+            key.cancel();
+            connection.channel.close();
+        }
+    }
+
+    private void handle(Connection connection, ByteBuffer frame) throws IOException {
+        byte type = frame.get();
+        if (type != MigrantCodec.HELLO && connection.island < 0) {
+            // Nothing is relayed or trusted from a connection that has not said which island it is
+            throw new IOException("frame type " + type + " before HELLO");
+        }
+        switch (type) {
+            case MigrantCodec.HELLO:
+                int island = frame.getInt();
+                if (connection.island >= 0 || island < 0 || island >= this.islandCount || this.islands[island] != null) {
+                    throw new IOException("unexpected island id " + island);
+                }
+                connection.island = island;
+                this.islands[island] = connection;
+                this.send(connection, MigrantCodec.encodeConfig(this.configFor(island)));
+                break;
+            case MigrantCodec.MIGRANTS:
+                frame.rewind();
+                for (int target = 0; target < this.islandCount; target++) {
+                    boolean neighbour = this.topology == IslandModel.Topology.RING
+                            ? target == (connection.island + 1) % this.islandCount
+                            : target != connection.island;
+                    if (neighbour && target != connection.island && this.islands[target] != null) {
+                        this.send(this.islands[target], reframe(frame));
+                    }
+                }
+                break;
+            case MigrantCodec.BEST:
+            case MigrantCodec.DONE:
+                frame.getInt(); // Island
+                frame.getInt(); // Generation
+                Individual reported = MigrantCodec.getIndividual(frame, this.knapsackCapacity);
+                reported.evaluate(this.catalog);
+                if (this.best == null || reported.getFitness() > this.best.getFitness()) {
+                    this.best = reported;
+                    this.bestIsland = connection.island;
+                }
+                if (type == MigrantCodec.DONE) {
+                    connection.done = true;
+                }
+                break;
+            default:
+                throw new IOException("unknown frame type " + type);
+        }
+    }
+
+    /**
+     * Each island's seed is drawn in island order from the run seed, so a
+     * run is reproducible up to migrant arrival timing
+     */
+    private MigrantCodec.Config configFor(int island) {
+        RandomSource seeds = new Xoshiro256StarStar(this.seed);
+        long islandSeed = 0;
+        for (int i = 0; i <= island; i++) {
+            islandSeed = seeds.nextLong();
+        }
+        MigrantCodec.Config config = new MigrantCodec.Config();
+        config.island = island;
+        config.seed = islandSeed;
+        config.generations = this.generations;
+        config.populationSize = this.populationSize;
+        config.mutationRate = this.mutationRate;
+        config.crossoverRate = this.crossoverRate;
+        config.elitismCount = this.elitismCount;
+        config.knapsackCapacity = this.knapsackCapacity;
+        config.migrationInterval = this.migrationInterval;
+        config.migrantCount = this.migrantCount;
+        config.catalog = this.catalog;
+        return config;
+    }
+
+    /**
+     * Prefix a received frame body with its length again for forwarding
+     */
+    private static ByteBuffer reframe(ByteBuffer body) {
+        ByteBuffer frame = ByteBuffer.allocate(4 + body.limit());
+        frame.putInt(body.limit());
+        frame.put(body.duplicate());
+        frame.flip();
+        return frame;
+    }
+
+    /**
+     * Queue a frame for a connection, dropping its oldest frame when the
+     * queue is full, and try to write right away. A frame partly written
+     * already is never dropped, the island would lose the frame boundaries.
+     */
+    private void send(Connection connection, ByteBuffer frame) {
+        SelectionKey key = connection.channel.keyFor(this.selector);
+        if (key == null || !key.isValid()) {
+            return; // Island already finished or failed
+        }
+        if (connection.outbound.size() >= MAX_QUEUED_FRAMES) {
+            ByteBuffer head = connection.outbound.poll();
+            if (head.position() > 0) {
+                // Drop the oldest frame not started instead
+                connection.outbound.poll();
+                connection.outbound.addFirst(head);
+            }
+            this.droppedFrames++;
+        }
+        connection.outbound.add(frame);
+        try {
+            this.flush(key, connection);
+        } catch (IOException e) {
+            key.cancel();
+            try {
+                connection.channel.close();
+            } catch (IOException ignored) {
+                // Already failing
+            }
+        }
+    }
+
+    /**
+     * Write queued frames until the socket would block
+     */
+    private void flush(SelectionKey key, Connection connection) throws IOException {
+        while (!connection.outbound.isEmpty()) {
+            ByteBuffer head = connection.outbound.peek();
+            connection.channel.write(head);
+            if (head.hasRemaining()) {
+                break;
+            }
+            connection.outbound.poll();
+        }
+        if (key.isValid()) {
+            key.interestOps(connection.outbound.isEmpty()
+                    ? SelectionKey.OP_READ
+                    : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    /**
+     * Get the island that reported the best individual
+     *
+     * @return The island id, or -1 if none reported
+     */
+    public int getBestIsland() {
+        return this.bestIsland;
+    }
+
+    /**
+     * Get the number of frames dropped because an island fell behind
+     *
+     * @return The dropped frame count
+     */
+    public long getDroppedFrames() {
+        return this.droppedFrames;
+    }
+
+    /**
+     * Run a random instance over local island processes.
+     * Usage: DistributedIslandRunner [islands] [seed]
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int islandCount = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+        int numItems = 1000;
+        RandomSource random = new Xoshiro256StarStar(seed);
+        int[] volumnes = new int[numItems];
+        int[] benefits = new int[numItems];
+        for (int item = 0; item < numItems; item++) {
+            volumnes[item] = random.nextInt(10) + 1;
+            benefits[item] = random.nextInt(10) + 1;
+        }
+        ItemCatalog catalog = new ItemCatalog(volumnes, benefits);
+        int knapsackCapacity = (int) (catalog.getTotalVolumne() / 2);
+        DistributedIslandRunner runner = new DistributedIslandRunner(islandCount, 100, 0.001, 0.7, 1,
+                knapsackCapacity, catalog, seed, IslandModel.Topology.RING, 10, 5, 200);
+        Individual best = runner.run(60000);
+        if (best == null) {
+            System.out.println("No island reported a result");
+        } else {
+            System.out.println("BEST SOLUTION from island " + runner.getBestIsland() + ": Fit: "
+                    + best.getFitness() + "  Vol: " + best.getVolume()
+                    + "  Dropped frames: " + runner.getDroppedFrames());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package evolutionarycomputation;
+
+/**
+ * Generation loop over two preallocated populations that swap roles every
+ * generation. Offspring are written into the chromosome storage of the idle
+ * buffer, so once the engine is built a generation allocates nothing:
+ * no Population, no Individual, no chromosome and no comparator.
+ *
+ * Each slot is filled in one go: elites are copied by rank, the other
+ * slots copy a roulette-selected parent, take a tournament-selected second
+ * parent's genes with the crossover probability, and are mutated. The
+ * operators and their settings are those of the GeneticAlgorithm given.
+ *
+ * The population returned by getPopulation() is reused two generations
+ * later, copy any individual that has to outlive that.
+ *
+ * @author Ziheng Cong
+ */
+
+public class DoubleBufferedEngine {
+    private final GeneticAlgorithm ga;
+    private Population current; // Evaluated population of the latest generation
+    private Population next; // Buffer the next generation is bred into
+    private final RouletteWheel rouletteWheel = new RouletteWheel();
+    private int generation = 0;
+
+    /**
+     * Initializes the engine and its two buffers
+     *
+     * @param ga
+     *          The genetic algorithm supplying operators, rates and random source
+     * @param initial
+     *          The first generation, evaluated by the engine and then owned by it
+     */
+    public DoubleBufferedEngine(GeneticAlgorithm ga, Population initial) {
+        this.ga = ga;
+        this.current = initial;
+        this.ga.evalPopulation(this.current);
+        this.next = new Population(initial.size(), initial.knapsackCapacity);
+        for (int i = 0; i < initial.size(); i++) {
+            this.next.setIndividual(i, new Individual(initial.getIndividual(i)));
+        }
+    }
+
+    /**
+     * Breed, evaluate and swap in the next generation
+     *
+     * @return The new current population
+     */
+    public Population step() {
+        RandomSource random = this.ga.getRandomSource();
+        int elitismCount = this.ga.getElitismCount();
+        double crossoverRate = this.ga.getCrossoverRate();
+        Individual[] parents = this.current.getIndividuals();
+        Individual[] children = this.next.getIndividuals();
+        this.rouletteWheel.build(this.current);
+        for (int i = 0; i < children.length; i++) {
+            Individual child = children[i];
+            if (i < elitismCount) {
+                // Elites pass unchanged, their sums stay valid so evaluation is free
+                child.copyFrom(this.current.getFittest(i));
+                continue;
+            }
+            child.copyFrom(parents[this.rouletteWheel.spin(random)]);
+            if (crossoverRate > random.nextDouble()) {
+                this.ga.crossoverInto(child, this.ga.selectParent(this.current, random), random);
+            }
+            this.ga.mutateIndividual(child, random);
+        }
+        this.ga.evalPopulation(this.next);
+        Population swap = this.current;
+        this.current = this.next;
+        this.next = swap;
+        this.generation++;
+        return this.current;
+    }
+
+    /**
+     * Get the current population
+     *
+     * @return The evaluated population of the latest generation
+     */
+    public Population getPopulation() {
+        return this.current;
+    }
+
+    /**
+     * Get the number of generations bred so far
+     *
+     * @return The generation count
+     */
+    public int getGeneration() {
+        return this.generation;
+    }
+}
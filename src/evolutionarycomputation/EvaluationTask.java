@@ -0,0 +1,82 @@
+package evolutionarycomputation;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Evaluates a range of individuals on a ForkJoinPool and returns the sum of
+ * their fitness. Each half of a split is summed separately and the two are
+ * added on join, so no shared accumulator is written by the workers. The
+ * number of fitness computations is added up the same way.
+ *
+ * @author Ziheng Cong
+ */
+
+class EvaluationTask extends RecursiveTask<Long> {
+    private static final long serialVersionUID = 1L;
+    private final Individual[] individuals;
+    private final ItemCatalog catalog;
+    private final FitnessCache cache; // Null when every individual is evaluated directly
+    private final GreedyRepair repair; // Null when overweight individuals are left as they are
+    private final int from;
+    private final int to;
+    private final int grainSize; // Individuals evaluated without splitting further
+    private int evaluated = 0; // Fitness computations of the range, set by compute()
+
+    /**
+     * @param individuals
+     *             The individuals to evaluate
+     * @param catalog
+     *             Stores the benefit & volumne of each item
+     * @param cache
+     *             Memo of evaluated chromosomes, may be null
+     * @param repair
+     *             Greedy repair of overweight chromosomes, may be null
+     * @param from
+     *             The first individual of the range
+     * @param to
+     *             The individual after the last one of the range
+     * @param grainSize
+     *             The largest range evaluated on a single worker
+     */
+    EvaluationTask(Individual[] individuals, ItemCatalog catalog, FitnessCache cache, GreedyRepair repair, int from, int to, int grainSize) {
+        this.individuals = individuals;
+        this.catalog = catalog;
+        this.cache = cache;
+        this.repair = repair;
+        this.from = from;
+        this.to = to;
+        this.grainSize = Math.max(1, grainSize);
+    }
+
+    @Override
+    protected Long compute() {
+        if (this.to - this.from <= this.grainSize) {
+            long fitness = 0;
+            for (int i = this.from; i < this.to; i++) {
+                if (Population.evaluate(this.individuals[i], this.catalog, this.cache, this.repair)) {
+                    this.evaluated++;
+                }
+                fitness += this.individuals[i].getFitness();
+            }
+            return fitness;
+        }
+        int mid = (this.from + this.to) >>> 1;
+        EvaluationTask left = new EvaluationTask(this.individuals, this.catalog, this.cache, this.repair, this.from, mid, this.grainSize);
+        EvaluationTask right = new EvaluationTask(this.individuals, this.catalog, this.cache, this.repair, mid, this.to, this.grainSize);
+        left.fork();
+        long rightFitness = right.compute();
+        long fitness = left.join() + rightFitness;
+        this.evaluated = left.evaluated + right.evaluated;
+        return fitness;
+    }
+
+    /**
+     * Get the number of individuals whose fitness was computed, valid once
+     * the task has completed
+     *
+     * @return The evaluation count of the range
+     */
+    int getEvaluated() {
+        return this.evaluated;
+    }
+}
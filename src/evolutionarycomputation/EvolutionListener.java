@@ -0,0 +1,21 @@
+package evolutionarycomputation;
+
+/**
+ * Receives the metrics of every generation bred by
+ * GeneticAlgorithm.nextGeneration.
+ *
+ * Listeners are called on the thread running the evolution loop, after the
+ * new generation has been evaluated, so they should return quickly.
+ *
+ * @author Ziheng Cong
+ */
+
+public interface EvolutionListener {
+    /**
+     * Called once per generation
+     *
+     * @param metrics
+     *             Timings and statistics of the generation just bred
+     */
+    void generationCompleted(GenerationMetrics metrics);
+}
@@ -0,0 +1,147 @@
+package evolutionarycomputation;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Listener publishing the latest generation's metrics, plus running
+ * totals, as a platform MXBean. JConsole or any JMX client can then watch
+ * a run without a profiler attached.
+ *
+ * The per-generation attributes describe the most recent generation. They
+ * are zero until the first generation completes. Diversity is the latest
+ * one measured, as it is only sampled every few generations.
+ *
+ * @author Ziheng Cong
+ */
+
+public class EvolutionMetrics implements EvolutionListener, EvolutionMetricsMXBean {
+    private volatile GenerationMetrics last; // Null before the first generation
+    private volatile long totalEvaluations = 0; // Written by the evolving thread only
+    private volatile long totalNanos = 0;
+    private volatile double diversity = 0.0; // Latest measured diversity
+    private ObjectName objectName; // Null while not registered
+
+    @Override
+    public void generationCompleted(GenerationMetrics metrics) {
+        this.totalEvaluations += metrics.getEvaluations();
+        this.totalNanos += metrics.getTotalNanos();
+        if (metrics.getSummary().hasDiversity()) {
+            this.diversity = metrics.getSummary().getDiversity();
+        }
+        this.last = metrics;
+    }
+
+    /**
+     * Register with the platform MBean server as
+     * evolutionarycomputation:type=EvolutionMetrics,name=name
+     *
+     * @param name
+     *          Distinguishes runs within one JVM
+     * @return The object name registered
+     */
+    public synchronized ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName("evolutionarycomputation:type=EvolutionMetrics,name="
+                                               + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        this.objectName = objectName;
+        return objectName;
+    }
+
+    /**
+     * Remove the registration made by register, if any
+     */
+    public synchronized void unregister() throws JMException {
+        if (this.objectName != null) {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.unregisterMBean(this.objectName);
+            this.objectName = null;
+        }
+    }
+
+    /**
+     * Get the metrics of the most recent generation
+     *
+     * @return The metrics, null before the first generation
+     */
+    public GenerationMetrics getLast() {
+        return this.last;
+    }
+
+    @Override
+    public int getGeneration() {
+        GenerationMetrics last = this.last;
+        return last == null ? 0 : last.getGeneration();
+    }
+
+    @Override
+    public int getBestFitness() {
+        GenerationMetrics last = this.last;
+        return last == null ? 0 : last.getSummary().getBestFitness();
+    }
+
+    @Override
+    public double getMeanFitness() {
+        GenerationMetrics last = this.last;
+        return last == null ? 0.0 : last.getSummary().getMeanFitness();
+    }
+
+    @Override
+    public int getWorstFitness() {
+        GenerationMetrics last = this.last;
+        return last == null ? 0 : last.getSummary().getWorstFitness();
+    }
+
+    @Override
+    public double getDiversity() {
+        return this.diversity;
+    }
+
+    @Override
+    public long getSelectionNanos() {
+        GenerationMetrics last = this.last;
+        return last == null ? 0 : last.getSelectionNanos();
+    }
+
+    @Override
+    public long getCrossoverNanos() {
+        GenerationMetrics last = this.last;
+        return last == null ? 0 : last.getCrossoverNanos();
+    }
+
+    @Override
+    public long getMutationNanos() {
+        GenerationMetrics last = this.last;
+        return last == null ? 0 : last.getMutationNanos();
+    }
+
+    @Override
+    public long getEvaluationNanos() {
+        GenerationMetrics last = this.last;
+        return last == null ? 0 : last.getEvaluationNanos();
+    }
+
+    @Override
+    public double getEvaluationsPerSecond() {
+        GenerationMetrics last = this.last;
+        return last == null ? 0.0 : last.getEvaluationsPerSecond();
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        GenerationMetrics last = this.last;
+        return last == null ? 0 : last.getAllocatedBytes();
+    }
+
+    @Override
+    public long getTotalEvaluations() {
+        return this.totalEvaluations;
+    }
+
+    @Override
+    public long getTotalNanos() {
+        return this.totalNanos;
+    }
+}
@@ -0,0 +1,35 @@
+package evolutionarycomputation;
+
+/**
+ * JMX view of a running evolution, see EvolutionMetrics
+ *
+ * @author Ziheng Cong
+ */
+
+public interface EvolutionMetricsMXBean {
+    int getGeneration();
+
+    int getBestFitness();
+
+    double getMeanFitness();
+
+    int getWorstFitness();
+
+    double getDiversity();
+
+    long getSelectionNanos();
+
+    long getCrossoverNanos();
+
+    long getMutationNanos();
+
+    long getEvaluationNanos();
+
+    double getEvaluationsPerSecond();
+
+    long getAllocatedBytes();
+
+    long getTotalEvaluations();
+
+    long getTotalNanos();
+}
@@ -0,0 +1,293 @@
+package evolutionarycomputation;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Exact 0/1 knapsack solutions over an ItemCatalog, the reference the GA
+ * is measured against.
+ *
+ * Dynamic programming keeps one row of best benefits per capacity,
+ * O(items x capacity) time and O(capacity) memory. The chosen items are
+ * recovered in Hirschberg's way: the items are split in half, a forward
+ * row for each half shows how the capacity is best divided between them,
+ * and each half is solved again with its share. This costs about twice
+ * the time of the value alone, but no decision table is kept.
+ *
+ * Branch-and-bound walks the items in benefit/volumne order, taking an item
+ * before leaving it out. A branch is cut when its LP relaxation, the greedy
+ * fill plus a fraction of the first item that does not fit, cannot beat
+ * the incumbent. Prefix sums over the ratio order make each bound a binary
+ * search. Its time depends on the instance rather than on the capacity,
+ * so a node limit stops the search with the best solution found so far.
+ *
+ * @author Ziheng Cong
+ */
+
+public final class ExactSolver {
+    private final ItemCatalog catalog;
+    private final int knapsackCapacity;
+    private final int capacityLimit; // The capacity, or the total volumne when everything fits
+    private long nodes = 0; // Nodes of the last branch-and-bound search
+    private boolean complete = false; // Whether the last search ran to the end
+    private IntConsumer improvementListener; // Null when nobody is told of a new incumbent
+
+    /**
+     * @param catalog
+     *          Stores the benefit & volumne of each item
+     * @param knapsackCapacity
+     *          The knapsack capacity
+     */
+    public ExactSolver(ItemCatalog catalog, int knapsackCapacity) {
+        if (knapsackCapacity < 0) {
+            throw new IllegalArgumentException("knapsackCapacity must not be negative");
+        }
+        this.catalog = catalog;
+        this.knapsackCapacity = knapsackCapacity;
+        this.capacityLimit = (int) Math.min(knapsackCapacity, catalog.getTotalVolumne());
+    }
+
+    /**
+     * Be told the benefit of every new incumbent of branch-and-bound, to
+     * trace how fast the search closes the gap
+     *
+     * @param listener
+     *          Called on the solving thread, null for none
+     */
+    public void setImprovementListener(IntConsumer listener) {
+        this.improvementListener = listener;
+    }
+
+    /**
+     * Optimal total benefit by dynamic programming over a single row
+     *
+     * @return The best benefit of any item set that fits
+     */
+    public int optimalBenefit() {
+        int[] row = new int[this.capacityLimit + 1];
+        this.fillRow(row, 0, this.catalog.size(), this.capacityLimit);
+        return row[this.capacityLimit];
+    }
+
+    /**
+     * Optimal individual by dynamic programming, the items recovered by
+     * Hirschberg's divide and conquer in O(capacity) memory
+     *
+     * @return An evaluated individual of optimal fitness
+     */
+    public Individual solveByDynamicProgramming() {
+        int numItems = this.catalog.size();
+        long[] words = new long[Individual.wordCount(numItems)];
+        if (numItems > 0) {
+            int[] front = new int[this.capacityLimit + 1];
+            int[] back = new int[this.capacityLimit + 1];
+            this.divide(words, 0, numItems, this.capacityLimit, front, back);
+        }
+        return this.individual(words);
+    }
+
+    /**
+     * Best benefit for every capacity up to a limit using the items
+     * [from, to), row[c] being the best with volumne at most c
+     */
+    private void fillRow(int[] row, int from, int to, int capacity) {
+        int[] volumnes = this.catalog.volumnes();
+        int[] benefits = this.catalog.benefits();
+        Arrays.fill(row, 0, capacity + 1, 0);
+        for (int item = from; item < to; item++) {
+            int volumne = volumnes[item];
+            int benefit = benefits[item];
+            // Downwards, so each item is counted at most once
+            for (int c = capacity; c >= volumne; c--) {
+                int taken = row[c - volumne] + benefit;
+                if (taken > row[c]) {
+                    row[c] = taken;
+                }
+            }
+        }
+    }
+
+    /**
+     * Choose the items of [from, to) for a capacity: split the capacity
+     * where the best of the front half plus the best of the back half is
+     * largest, then solve each half with its part. The two rows are reused
+     * by the recursion once the split is known.
+     */
+    private void divide(long[] words, int from, int to, int capacity, int[] front, int[] back) {
+        if (to - from == 1) {
+            if (this.catalog.getVolumne(from) <= capacity && this.catalog.getBenefit(from) > 0) {
+                words[from >>> 6] |= 1L << from;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        this.fillRow(front, from, mid, capacity);
+        this.fillRow(back, mid, to, capacity);
+        int split = 0;
+        int best = -1;
+        for (int c = 0; c <= capacity; c++) {
+            int value = front[c] + back[capacity - c];
+            if (value > best) {
+                best = value;
+                split = c;
+            }
+        }
+        this.divide(words, from, mid, split, front, back);
+        this.divide(words, mid, to, capacity - split, front, back);
+    }
+
+    /**
+     * Optimal individual by branch-and-bound
+     *
+     * @return An evaluated individual of optimal fitness
+     */
+    public Individual solveByBranchAndBound() {
+        return this.solveByBranchAndBound(Long.MAX_VALUE);
+    }
+
+    /**
+     * Branch-and-bound with a node limit. The search starts from the greedy
+     * solution, so even a short search returns a good individual.
+     *
+     * @param nodeLimit
+     *          The largest number of nodes visited
+     * @return An evaluated individual, optimal if isLastSearchComplete()
+     */
+    public Individual solveByBranchAndBound(long nodeLimit) {
+        int[] volumnes = this.catalog.volumnes();
+        int[] benefits = this.catalog.benefits();
+        int[] order = this.catalog.ratioOrder();
+        int numItems = order.length;
+        // Prefix sums of volumne and benefit in ratio order, for the LP bound
+        long[] volumneSums = new long[numItems + 1];
+        long[] benefitSums = new long[numItems + 1];
+        for (int rank = 0; rank < numItems; rank++) {
+            volumneSums[rank + 1] = volumneSums[rank] + volumnes[order[rank]];
+            benefitSums[rank + 1] = benefitSums[rank] + benefits[order[rank]];
+        }
+
+        // Greedy incumbent: every item that still fits, in ratio order
+        long[] incumbent = new long[Individual.wordCount(numItems)];
+        long bestBenefit = 0;
+        long free = this.knapsackCapacity;
+        for (int rank = 0; rank < numItems; rank++) {
+            int item = order[rank];
+            if (volumnes[item] <= free) {
+                free -= volumnes[item];
+                bestBenefit += benefits[item];
+                incumbent[item >>> 6] |= 1L << item;
+            }
+        }
+        if (this.improvementListener != null) {
+            this.improvementListener.accept((int) bestBenefit);
+        }
+
+        // Depth-first over ranks; included[rank] tells which branch is being explored
+        long[] selection = new long[incumbent.length];
+        boolean[] included = new boolean[numItems];
+        long remaining = this.knapsackCapacity;
+        long benefit = 0;
+        long visited = 0;
+        int rank = 0;
+        boolean descending = true;
+        while (true) {
+            if (descending) {
+                visited++;
+                if (benefit > bestBenefit) {
+                    bestBenefit = benefit;
+                    System.arraycopy(selection, 0, incumbent, 0, selection.length);
+                    if (this.improvementListener != null) {
+                        this.improvementListener.accept((int) bestBenefit);
+                    }
+                }
+                if (visited >= nodeLimit) {
+                    break;
+                }
+                if (rank < numItems && bound(volumneSums, benefitSums, order, rank, remaining, benefit) > bestBenefit) {
+                    int item = order[rank];
+                    if (volumnes[item] <= remaining) {
+                        // Take the item first, the LP bound favours it
+                        included[rank] = true;
+                        selection[item >>> 6] |= 1L << item;
+                        remaining -= volumnes[item];
+                        benefit += benefits[item];
+                    } else {
+                        included[rank] = false;
+                    }
+                    rank++;
+                    continue;
+                }
+                descending = false;
+            }
+            // Back up to the deepest rank whose item was taken and leave it out instead
+            rank--;
+            while (rank >= 0 && !included[rank]) {
+                rank--;
+            }
+            if (rank < 0) {
+                break;
+            }
+            int item = order[rank];
+            included[rank] = false;
+            selection[item >>> 6] &= ~(1L << item);
+            remaining += volumnes[item];
+            benefit -= benefits[item];
+            rank++;
+            descending = true;
+        }
+        this.nodes = visited;
+        this.complete = rank < 0;
+        return this.individual(incumbent);
+    }
+
+    /**
+     * LP relaxation of the items from a rank on: the ones that fit whole,
+     * then the fraction of the first that does not, rounded down
+     */
+    private static long bound(long[] volumneSums, long[] benefitSums, int[] order, int rank, long remaining, long benefit) {
+        long limit = volumneSums[rank] + remaining;
+        // Last prefix within the limit, by binary search over the non-decreasing sums
+        int low = rank;
+        int high = volumneSums.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (volumneSums[mid] <= limit) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        long bound = benefit + benefitSums[low] - benefitSums[rank];
+        if (low < order.length) {
+            long left = limit - volumneSums[low];
+            long volumne = volumneSums[low + 1] - volumneSums[low];
+            bound += left * (benefitSums[low + 1] - benefitSums[low]) / volumne;
+        }
+        return bound;
+    }
+
+    private Individual individual(long[] words) {
+        Individual individual = new Individual(words, this.catalog.size(), this.knapsackCapacity);
+        individual.evaluate(this.catalog);
+        return individual;
+    }
+
+    /**
+     * Get the number of nodes the last branch-and-bound search visited
+     *
+     * @return The node count
+     */
+    public long getNodes() {
+        return this.nodes;
+    }
+
+    /**
+     * Whether the last branch-and-bound search finished within its node
+     * limit, so its result is proven optimal
+     *
+     * @return True when the search space was exhausted
+     */
+    public boolean isLastSearchComplete() {
+        return this.complete;
+    }
+}
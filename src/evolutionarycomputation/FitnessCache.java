@@ -0,0 +1,282 @@
+package evolutionarycomputation;
+
+/**
+ * Bounded memo of evaluated chromosomes, indexed by a 64-bit hash of the
+ * packed genes.
+ *
+ * Converged populations hold many copies of the same chromosome. A
+ * duplicate that cannot be delta-evaluated is looked up here instead of
+ * walked gene by gene. Entries are kept in lock-striped segments, so
+ * parallel evaluation workers rarely contend. Each segment evicts with
+ * the CLOCK algorithm: a hit sets the entry's reference bit, and the hand
+ * clears reference bits until it finds an entry that was not used since
+ * its last pass.
+ *
+ * Each entry keeps a copy of its chromosome words, and a hit needs the
+ * words to match, not only the hash. Two chromosomes with the same hash
+ * get separate entries, so a cached fitness is always exact. The copies
+ * cost capacity x ceil(L / 64) longs.
+ *
+ * One cache serves one catalog and capacity. Using it with another throws
+ * IllegalStateException.
+ *
+ * @author Ziheng Cong
+ */
+
+public class FitnessCache {
+    private final Segment[] segments;
+    private final int segmentShift; // Hash bits left after the segment index
+    private volatile ItemCatalog catalog; // Bound on first use
+    private volatile int knapsackCapacity;
+
+    /**
+     * One lock stripe: a CLOCK ring of entries and a linear-probing index
+     * from hash to ring slot
+     */
+    private static final class Segment {
+        final long[] keys;
+        long[] genes; // Chromosome words of each slot, allocated on first insert
+        int words; // Words per chromosome
+        final int[] fitness;
+        final int[] volumnes;
+        final int[] benefits; // Full benefit sums, valid where exact is set
+        final boolean[] exact;
+        final boolean[] referenced;
+        final int[] index; // Ring slot + 1, 0 for an empty index cell
+        final int indexMask;
+        int size = 0;
+        int hand = 0;
+        long hits = 0;
+        long misses = 0;
+        long evictions = 0;
+
+        Segment(int capacity) {
+            this.keys = new long[capacity];
+            this.fitness = new int[capacity];
+            this.volumnes = new int[capacity];
+            this.benefits = new int[capacity];
+            this.exact = new boolean[capacity];
+            this.referenced = new boolean[capacity];
+            int cells = Integer.highestOneBit(capacity * 2 - 1) << 1; // At most half full
+            this.index = new int[cells];
+            this.indexMask = cells - 1;
+        }
+
+        int find(long key, long[] chromosome) {
+            for (int cell = (int) key & this.indexMask; ; cell = (cell + 1) & this.indexMask) {
+                int slot = this.index[cell] - 1;
+                if (slot < 0) {
+                    return -1;
+                }
+                if (this.keys[slot] == key && this.holds(slot, chromosome)) {
+                    return slot;
+                }
+            }
+        }
+
+        private boolean holds(int slot, long[] chromosome) {
+            int offset = slot * this.words;
+            for (int word = 0; word < this.words; word++) {
+                if (this.genes[offset + word] != chromosome[word]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void insert(long key, Individual individual) {
+            long[] chromosome = individual.getChromosomeWords();
+            if (this.genes == null) {
+                this.words = chromosome.length;
+                this.genes = new long[this.keys.length * this.words];
+            }
+            int slot;
+            if (this.size < this.keys.length) {
+                slot = this.size++;
+            } else {
+                // CLOCK: pass over recently used entries, clearing their bit
+                while (this.referenced[this.hand]) {
+                    this.referenced[this.hand] = false;
+                    this.hand = this.hand + 1 == this.keys.length ? 0 : this.hand + 1;
+                }
+                slot = this.hand;
+                this.hand = this.hand + 1 == this.keys.length ? 0 : this.hand + 1;
+                this.remove(slot);
+                this.evictions++;
+            }
+            this.keys[slot] = key;
+            System.arraycopy(chromosome, 0, this.genes, slot * this.words, this.words);
+            this.fitness[slot] = individual.getFitness();
+            this.volumnes[slot] = individual.getVolume();
+            this.exact[slot] = individual.hasExactTotals();
+            this.benefits[slot] = individual.getBenefitSum();
+            this.referenced[slot] = false;
+            int cell = (int) key & this.indexMask;
+            while (this.index[cell] != 0) {
+                cell = (cell + 1) & this.indexMask;
+            }
+            this.index[cell] = slot + 1;
+        }
+
+        /**
+         * Delete the index cell of a slot by shifting the rest of its probe
+         * run back
+         */
+        private void remove(int slot) {
+            int cell = (int) this.keys[slot] & this.indexMask;
+            while (this.index[cell] != slot + 1) {
+                cell = (cell + 1) & this.indexMask;
+            }
+            int hole = cell;
+            for (cell = (hole + 1) & this.indexMask; this.index[cell] != 0; cell = (cell + 1) & this.indexMask) {
+                int home = (int) this.keys[this.index[cell] - 1] & this.indexMask;
+                // Move the entry into the hole unless its home lies between the hole and its cell
+                if (((cell - home) & this.indexMask) >= ((cell - hole) & this.indexMask)) {
+                    this.index[hole] = this.index[cell];
+                    hole = cell;
+                }
+            }
+            this.index[hole] = 0;
+        }
+    }
+
+    /**
+     * @param capacity
+     *          The number of chromosomes remembered
+     * @param segmentCount
+     *          Lock stripes, rounded up to a power of two; about the number
+     *          of evaluating threads
+     */
+    public FitnessCache(int capacity, int segmentCount) {
+        if (capacity < 1 || segmentCount < 1) {
+            throw new IllegalArgumentException("capacity and segmentCount must be at least 1");
+        }
+        int segments = Integer.highestOneBit(segmentCount * 2 - 1);
+        segments = Math.min(segments, Integer.highestOneBit(capacity));
+        this.segments = new Segment[segments];
+        for (int i = 0; i < segments; i++) {
+            this.segments[i] = new Segment((capacity + segments - 1) / segments);
+        }
+        this.segmentShift = 64 - Integer.numberOfTrailingZeros(segments);
+    }
+
+    /**
+     * @param capacity
+     *          The number of chromosomes remembered
+     */
+    public FitnessCache(int capacity) {
+        this(capacity, 16);
+    }
+
+    /**
+     * Hash of the chromosome and its length
+     *
+     * @param individual
+     *          The individual
+     * @return The 64-bit key of its genes
+     */
+    static long hash(Individual individual) {
+        long hash = individual.getChromosomeLength();
+        for (long word : individual.getChromosomeWords()) {
+            hash = SplitMix64.mix(hash ^ word) + 0x9E3779B97F4A7C15L;
+        }
+        return hash;
+    }
+
+    /**
+     * Evaluate an individual, reusing the cached fitness & volumne of an
+     * identical chromosome. Individuals evaluate() handles cheaply, clean
+     * ones and those with exact sums to update, do not touch the cache.
+     *
+     * @param individual
+     *          The individual to evaluate
+     * @param catalog
+     *          Stores the benefit & volumne of each item
+     * @return True when the fitness was computed, false when it came from
+     *          the cache or the individual was unchanged
+     */
+    public boolean evaluate(Individual individual, ItemCatalog catalog) {
+        if (!individual.needsFullEvaluation(catalog)) {
+            return individual.evaluate(catalog);
+        }
+        if (this.catalog != catalog || this.knapsackCapacity != individual.knapsackCapacity) {
+            this.bind(catalog, individual.knapsackCapacity);
+        }
+        long key = hash(individual);
+        Segment segment = this.segments[(int) (key >>> this.segmentShift) & (this.segments.length - 1)];
+        synchronized (segment) {
+            int slot = segment.find(key, individual.getChromosomeWords());
+            if (slot >= 0) {
+                segment.hits++;
+                segment.referenced[slot] = true;
+                individual.setEvaluation(segment.fitness[slot], segment.volumnes[slot],
+                                         segment.benefits[slot], segment.exact[slot], catalog);
+                return false;
+            }
+            segment.misses++;
+        }
+        individual.evaluate(catalog);
+        synchronized (segment) {
+            if (segment.find(key, individual.getChromosomeWords()) < 0) {
+                segment.insert(key, individual);
+            }
+        }
+        return true;
+    }
+
+    private synchronized void bind(ItemCatalog catalog, int knapsackCapacity) {
+        if (this.catalog == null) {
+            this.knapsackCapacity = knapsackCapacity;
+            this.catalog = catalog;
+        } else if (this.catalog != catalog || this.knapsackCapacity != knapsackCapacity) {
+            throw new IllegalStateException("the cache holds evaluations of another catalog or capacity");
+        }
+    }
+
+    public long getHits() {
+        long hits = 0;
+        for (Segment segment : this.segments) {
+            synchronized (segment) {
+                hits += segment.hits;
+            }
+        }
+        return hits;
+    }
+
+    public long getMisses() {
+        long misses = 0;
+        for (Segment segment : this.segments) {
+            synchronized (segment) {
+                misses += segment.misses;
+            }
+        }
+        return misses;
+    }
+
+    public long getEvictions() {
+        long evictions = 0;
+        for (Segment segment : this.segments) {
+            synchronized (segment) {
+                evictions += segment.evictions;
+            }
+        }
+        return evictions;
+    }
+
+    /**
+     * Get the share of lookups that found their chromosome
+     *
+     * @return Hits over lookups, 0 before the first lookup
+     */
+    public double getHitRate() {
+        long hits = this.getHits();
+        long lookups = hits + this.getMisses();
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Hits: %d  Misses: %d  Evictions: %d  Hit rate: %.2f%%",
+                             this.getHits(), this.getMisses(), this.getEvictions(), 100 * this.getHitRate());
+    }
+}
@@ -0,0 +1,189 @@
+package evolutionarycomputation;
+
+import java.util.ArrayList;
+
+/**
+ * Which generations a GeneticAlgorithm keeps reachable.
+ *
+ * ALL keeps every population, as the original Population[] did. NONE keeps
+ * none, LAST_N keeps the latest n in a ring buffer and PERIODIC keeps every
+ * interval-th generation. Any policy can also record a GenerationSummary for
+ * every generation, so best, mean, worst and diversity stay available after
+ * the chromosomes are gone. A summary the GeneticAlgorithm already made for
+ * its listeners is recorded as it is, with diversity only where sampled.
+ *
+ * @author Ziheng Cong
+ */
+
+public final class GenerationHistory {
+
+    public enum Policy {
+        ALL, NONE, LAST_N, PERIODIC
+    }
+
+    private final Policy policy;
+    private final int parameter; // n for LAST_N, interval for PERIODIC
+    private final boolean summarize;
+    private final ArrayList<Population> kept = new ArrayList<Population>(); // ALL by generation, PERIODIC by generation / interval
+    private final Population[] ring; // LAST_N populations, slot = generation % n
+    private final int[] ringGenerations;
+    private final ArrayList<GenerationSummary> summaries = new ArrayList<GenerationSummary>();
+
+    private GenerationHistory(Policy policy, int parameter, boolean summarize) {
+        if ((policy == Policy.LAST_N || policy == Policy.PERIODIC) && parameter < 1) {
+            throw new IllegalArgumentException(policy + " needs a parameter of at least 1");
+        }
+        this.policy = policy;
+        this.parameter = parameter;
+        this.summarize = summarize;
+        if (policy == Policy.LAST_N) {
+            this.ring = new Population[parameter];
+            this.ringGenerations = new int[parameter];
+        } else {
+            this.ring = null;
+            this.ringGenerations = null;
+        }
+    }
+
+    /**
+     * @return A history keeping every population
+     */
+    public static GenerationHistory all() {
+        return new GenerationHistory(Policy.ALL, 0, false);
+    }
+
+    /**
+     * @param summarize
+     *          Whether to record a summary of every generation
+     * @return A history keeping no population
+     */
+    public static GenerationHistory none(boolean summarize) {
+        return new GenerationHistory(Policy.NONE, 0, summarize);
+    }
+
+    /**
+     * @param n
+     *          The number of latest populations kept
+     * @param summarize
+     *          Whether to record a summary of every generation
+     * @return A history keeping the last n populations
+     */
+    public static GenerationHistory lastN(int n, boolean summarize) {
+        return new GenerationHistory(Policy.LAST_N, n, summarize);
+    }
+
+    /**
+     * @param interval
+     *          Keep the populations of generations 0, interval, 2 * interval...
+     * @param summarize
+     *          Whether to record a summary of every generation
+     * @return A history keeping periodic snapshots
+     */
+    public static GenerationHistory periodic(int interval, boolean summarize) {
+        return new GenerationHistory(Policy.PERIODIC, interval, summarize);
+    }
+
+    /**
+     * Record the evaluated population of a generation. The summary, when
+     * enabled, is taken now, before later operators can touch the individuals.
+     *
+     * @param generation
+     *          The generation number
+     * @param population
+     *          The population of that generation
+     */
+    public void record(int generation, Population population) {
+        this.record(generation, population, null);
+    }
+
+    /**
+     * Record a generation, reusing a summary already made of its population
+     *
+     * @param generation
+     *          The generation number
+     * @param population
+     *          The population of that generation
+     * @param summary
+     *          The summary of the population, null to summarize it here
+     */
+    void record(int generation, Population population, GenerationSummary summary) {
+        if (this.summarize) {
+            set(this.summaries, generation, summary != null ? summary : GenerationSummary.of(generation, population));
+        }
+        switch (this.policy) {
+            case ALL:
+                set(this.kept, generation, population);
+                break;
+            case LAST_N:
+                int slot = generation % this.parameter;
+                this.ring[slot] = population;
+                this.ringGenerations[slot] = generation;
+                break;
+            case PERIODIC:
+                if (generation % this.parameter == 0) {
+                    set(this.kept, generation / this.parameter, population);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Get a retained population
+     *
+     * @param generation
+     *          The generation number
+     * @return The population, or null when the policy did not keep it
+     */
+    public Population get(int generation) {
+        switch (this.policy) {
+            case ALL:
+                return get(this.kept, generation);
+            case LAST_N:
+                int slot = generation % this.parameter;
+                return this.ring[slot] != null && this.ringGenerations[slot] == generation ? this.ring[slot] : null;
+            case PERIODIC:
+                return generation % this.parameter == 0 ? get(this.kept, generation / this.parameter) : null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Get the statistics of a generation, recorded or computed from the
+     * retained population
+     *
+     * @param generation
+     *          The generation number
+     * @return The summary, or null when neither was kept
+     */
+    public GenerationSummary getSummary(int generation) {
+        GenerationSummary summary = get(this.summaries, generation);
+        if (summary == null) {
+            Population population = this.get(generation);
+            if (population != null) {
+                summary = GenerationSummary.of(generation, population);
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * @return The retention policy
+     */
+    public Policy getPolicy() {
+        return this.policy;
+    }
+
+    private static <T> void set(ArrayList<T> list, int index, T value) {
+        while (list.size() <= index) {
+            list.add(null);
+        }
+        list.set(index, value);
+    }
+
+    private static <T> T get(ArrayList<T> list, int index) {
+        return index >= 0 && index < list.size() ? list.get(index) : null;
+    }
+}
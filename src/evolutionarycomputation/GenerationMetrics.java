@@ -0,0 +1,112 @@
+package evolutionarycomputation;
+
+/**
+ * Where the time of one generation went: the duration of each phase of
+ * nextGeneration, the evaluation rate, the bytes allocated and the fitness
+ * statistics of the bred population.
+ *
+ * @author Ziheng Cong
+ */
+
+public final class GenerationMetrics {
+    private final GenerationSummary summary;
+    private final long selectionNanos;
+    private final long crossoverNanos;
+    private final long mutationNanos;
+    private final long evaluationNanos;
+    private final int evaluations;
+    private final long allocatedBytes;
+
+    /**
+     * @param summary
+     *             The statistics of the bred population
+     * @param selectionNanos
+     *             Time spent selecting the parent population
+     * @param crossoverNanos
+     *             Time spent on crossover
+     * @param mutationNanos
+     *             Time spent on mutation
+     * @param evaluationNanos
+     *             Time spent evaluating the new population
+     * @param evaluations
+     *             Fitness computations, without the unchanged and cached
+     *             individuals evaluation skipped
+     * @param allocatedBytes
+     *             Bytes allocated by the evolving thread, -1 if the JVM cannot tell
+     */
+    public GenerationMetrics(GenerationSummary summary, long selectionNanos, long crossoverNanos,
+                             long mutationNanos, long evaluationNanos, int evaluations, long allocatedBytes) {
+        this.summary = summary;
+        this.selectionNanos = selectionNanos;
+        this.crossoverNanos = crossoverNanos;
+        this.mutationNanos = mutationNanos;
+        this.evaluationNanos = evaluationNanos;
+        this.evaluations = evaluations;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    public int getGeneration() {
+        return this.summary.getGeneration();
+    }
+
+    public GenerationSummary getSummary() {
+        return this.summary;
+    }
+
+    public long getSelectionNanos() {
+        return this.selectionNanos;
+    }
+
+    public long getCrossoverNanos() {
+        return this.crossoverNanos;
+    }
+
+    public long getMutationNanos() {
+        return this.mutationNanos;
+    }
+
+    public long getEvaluationNanos() {
+        return this.evaluationNanos;
+    }
+
+    /**
+     * Get the duration of the whole generation
+     *
+     * @return The sum of the phase timings
+     */
+    public long getTotalNanos() {
+        return this.selectionNanos + this.crossoverNanos + this.mutationNanos + this.evaluationNanos;
+    }
+
+    public int getEvaluations() {
+        return this.evaluations;
+    }
+
+    /**
+     * Get the evaluation throughput of the evaluation phase
+     *
+     * @return Fitness computations per second
+     */
+    public double getEvaluationsPerSecond() {
+        return this.evaluationNanos == 0 ? 0.0 : this.evaluations * 1e9 / this.evaluationNanos;
+    }
+
+    /**
+     * Get the bytes allocated while breeding the generation. Only the thread
+     * running the loop is counted, not parallel evaluation or breeding workers.
+     *
+     * @return The allocated bytes, -1 if the JVM cannot measure them
+     */
+    public long getAllocatedBytes() {
+        return this.allocatedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s  Selection: %.3f ms  Crossover: %.3f ms  Mutation: %.3f ms  Evaluation: %.3f ms"
+                             + "  Evals/s: %.0f  Allocated: %d B",
+                             this.summary, this.selectionNanos / 1e6, this.crossoverNanos / 1e6,
+                             this.mutationNanos / 1e6, this.evaluationNanos / 1e6,
+                             this.getEvaluationsPerSecond(), this.allocatedBytes);
+    }
+}
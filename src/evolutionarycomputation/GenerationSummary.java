@@ -0,0 +1,116 @@
+package evolutionarycomputation;
+
+/**
+ * Compact statistics of one generation, kept instead of the population
+ * when the generation history does not hold every chromosome.
+ *
+ * Diversity costs about as much as a full evaluation, so the summaries a
+ * GeneticAlgorithm makes for its listeners measure it only every few
+ * generations. It is NaN in the others.
+ *
+ * @author Ziheng Cong
+ */
+
+public final class GenerationSummary {
+    private final int generation;
+    private final int bestFitness;
+    private final double meanFitness;
+    private final int worstFitness;
+    private final double diversity;
+
+    /**
+     * @param generation
+     *             The generation the statistics belong to
+     * @param bestFitness
+     *             The highest individual fitness
+     * @param meanFitness
+     *             The mean individual fitness
+     * @param worstFitness
+     *             The lowest individual fitness
+     * @param diversity
+     *             The population diversity, see Population.getDiversity(),
+     *             NaN when not measured
+     */
+    public GenerationSummary(int generation, int bestFitness, double meanFitness, int worstFitness, double diversity) {
+        this.generation = generation;
+        this.bestFitness = bestFitness;
+        this.meanFitness = meanFitness;
+        this.worstFitness = worstFitness;
+        this.diversity = diversity;
+    }
+
+    /**
+     * Summarize an evaluated population
+     *
+     * @param generation
+     *             The generation of the population
+     * @param population
+     *             The evaluated population
+     * @return The summary
+     */
+    public static GenerationSummary of(int generation, Population population) {
+        return of(generation, population, true);
+    }
+
+    /**
+     * Summarize an evaluated population, measuring diversity only when asked
+     *
+     * @param generation
+     *             The generation of the population
+     * @param population
+     *             The evaluated population
+     * @param withDiversity
+     *             Whether to measure diversity, NaN is recorded otherwise
+     * @return The summary
+     */
+    public static GenerationSummary of(int generation, Population population, boolean withDiversity) {
+        int best = Integer.MIN_VALUE;
+        int worst = Integer.MAX_VALUE;
+        long sum = 0;
+        for (int i = 0; i < population.size(); i++) {
+            int fitness = population.getIndividual(i).getFitness();
+            best = Math.max(best, fitness);
+            worst = Math.min(worst, fitness);
+            sum += fitness;
+        }
+        double mean = population.size() == 0 ? 0.0 : (double) sum / population.size();
+        double diversity = withDiversity ? population.getDiversity() : Double.NaN;
+        return new GenerationSummary(generation, best, mean, worst, diversity);
+    }
+
+    public int getGeneration() {
+        return this.generation;
+    }
+
+    public int getBestFitness() {
+        return this.bestFitness;
+    }
+
+    public double getMeanFitness() {
+        return this.meanFitness;
+    }
+
+    public int getWorstFitness() {
+        return this.worstFitness;
+    }
+
+    public double getDiversity() {
+        return this.diversity;
+    }
+
+    /**
+     * Whether the diversity of this generation was measured
+     *
+     * @return False when getDiversity() is NaN
+     */
+    public boolean hasDiversity() {
+        return !Double.isNaN(this.diversity);
+    }
+
+    @Override
+    public String toString() {
+        String text = String.format("Generation %d  Best: %d  Mean: %.2f  Worst: %d",
+                                    this.generation, this.bestFitness, this.meanFitness, this.worstFitness);
+        return this.hasDiversity() ? text + String.format("  Diversity: %.4f", this.diversity) : text;
+    }
+}
@@ -1,6 +1,12 @@
 package evolutionarycomputation;
 
-import java.security.SecureRandom;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  *
@@ -8,15 +14,31 @@ import java.security.SecureRandom;
  */
 
 public class GeneticAlgorithm {
-    private Item it;
+    private ItemCatalog catalog;
     private int numItems; 
     private int elitismCount; // Number of elite individuals
     private int knapsackCapacity;
     private int populationSize; // Population size
     private final int GENERATION_COUNT;
-    private Population[] Generations;
+    private GenerationHistory Generations; // Which generations stay reachable, all by default
     private double mutationRate; // Mutation probability
     private double crossoverRate; // Crossover probability
+    private ForkJoinPool evaluationPool; // Null when the population is evaluated on the caller thread
+    private int evaluationGrainSize = 256; // Individuals evaluated by one parallel task
+    private FitnessCache fitnessCache; // Null when chromosomes are always evaluated
+    private GreedyRepair repair; // Null when overweight chromosomes keep fitness 0
+    private ForkJoinPool breedingPool; // Null when offspring are bred on the caller thread
+    private RandomSource[] breedingStreams = new RandomSource[0]; // One stream per chunk of slots
+    private RandomSource random; // Random source of every operator on the caller thread
+    private final RouletteWheel rouletteWheel = new RouletteWheel(); // Reused by every selection
+    private int tournamentSize = 5; // Individuals drawn per tournament in selectParent
+    private final List<EvolutionListener> listeners = new CopyOnWriteArrayList<EvolutionListener>();
+    private int generationsBred = 0; // Generations produced by nextGeneration
+    private int diversityInterval = 10; // Generations between two diversity measurements for the listeners
+    private GenerationSummary lastSummary; // Summary given to the listeners, reused by the history
+    private Population lastSummarized; // The population lastSummary describes
+    private Path checkpointFile; // Null when no checkpoints are written
+    private int checkpointInterval; // Generations between two checkpoints
     
     /**
      * Constructor of GeneticAlgorithm
@@ -33,22 +55,72 @@ public class GeneticAlgorithm {
      *               The size and constrain of the population
      * @param generationCount
      *               The count of the generation
-     * @param it
-     *               The instance of Item class which stores fitness & volumne
+     * @param catalog
+     *               The item catalog which stores benefit & volumne
      * @param numItems
      *               The size of each individual's chromosome
      */
     public GeneticAlgorithm(int populationSize, double mutationRate,
-                double crossoverRate, int elitismCount, int knapsackCapacity, int generationCount,Item it, int numItems) {
+                double crossoverRate, int elitismCount, int knapsackCapacity, int generationCount,ItemCatalog catalog, int numItems) {
         this.populationSize = populationSize;
         this.mutationRate = mutationRate;
         this.crossoverRate = crossoverRate;
         this.elitismCount = elitismCount;
         this.knapsackCapacity = knapsackCapacity; 
         this.GENERATION_COUNT = generationCount; 
-        this.Generations = new Population[GENERATION_COUNT]; 
-        this.it = it;
+        this.Generations = GenerationHistory.all(); 
+        this.catalog = catalog;
         this.numItems = numItems; 
+        this.random = RandomSource.unseeded();
+    }
+    
+    /**
+     * Constructor of GeneticAlgorithm with a seed, two runs with the same
+     * seed and parameters evolve the same populations
+     * 
+     * @param populationSize
+     *               The number of individuals in the population
+     * @param mutationRate
+     *               The mutation rate of the population
+     * @param crossoverRate
+     *               The crossover rate of the population
+     * @param elitismCount
+     *               The strongest individuals in the population
+     * @param knapsackCapacity
+     *               The size and constrain of the population
+     * @param generationCount
+     *               The count of the generation
+     * @param catalog
+     *               The item catalog which stores benefit & volumne
+     * @param numItems
+     *               The size of each individual's chromosome
+     * @param seed
+     *               The seed of the random source
+     */
+    public GeneticAlgorithm(int populationSize, double mutationRate,
+                double crossoverRate, int elitismCount, int knapsackCapacity, int generationCount,ItemCatalog catalog, int numItems, long seed) {
+        this(populationSize, mutationRate, crossoverRate, elitismCount, knapsackCapacity, generationCount, catalog, numItems);
+        this.random = new Xoshiro256StarStar(seed);
+    }
+    
+    /**
+     * Replace the random source of the operators
+     * 
+     * @param random
+     *           The random source, parallel breeding streams are split from it
+     */
+    public void setRandomSource(RandomSource random) {
+        this.random = random;
+        this.breedingStreams = new RandomSource[0];
+    }
+    
+    /**
+     * Get the random source of the operators
+     * 
+     * @return The random source
+     */
+    public RandomSource getRandomSource() {
+        return this.random;
     }
     
     /**
@@ -60,11 +132,32 @@ public class GeneticAlgorithm {
      *          population The initial population generated
      */
     public Population initPopulation(int chromosomeLength){
-        // Initialize population
-        Population population = new Population(this.populationSize, this.numItems, this.knapsackCapacity, this.it);
+        // Initialize population, greedily seeded when a repair is set
+        if (this.repair != null) {
+            return new Population(this.populationSize, this.numItems, this.knapsackCapacity, this.catalog, this.random, this.repair);
+        }
+        Population population = new Population(this.populationSize, this.numItems, this.knapsackCapacity, this.catalog, this.random);
         return population;
     }
     
+    /**
+     * Get the number of elite individuals kept unchanged each generation
+     * 
+     * @return The elitism count
+     */
+    public int getElitismCount() {
+        return this.elitismCount;
+    }
+    
+    /**
+     * Get the crossover probability
+     * 
+     * @return The crossover rate
+     */
+    public double getCrossoverRate() {
+        return this.crossoverRate;
+    }
+    
     /**
      * Get the count of the generation
      * 
@@ -74,20 +167,268 @@ public class GeneticAlgorithm {
          return this.GENERATION_COUNT;
     }
     
+    /**
+     * Evaluate populations in parallel on a ForkJoinPool
+     * 
+     * @param pool
+     *           The pool to evaluate on, or null to evaluate on the caller thread
+     * @param grainSize
+     *           The largest number of individuals evaluated by one task
+     */
+    public void setParallelEvaluation(ForkJoinPool pool, int grainSize) {
+        this.evaluationPool = pool;
+        this.evaluationGrainSize = grainSize;
+    }
+    
+    /**
+     * Look up chromosomes needing a full evaluation in a fitness cache, so
+     * duplicates of an evaluated chromosome are not walked again
+     * 
+     * @param cache
+     *           The cache for this GA's catalog and capacity, or null for none
+     */
+    public void setFitnessCache(FitnessCache cache) {
+        this.fitnessCache = cache;
+    }
+    
+    /**
+     * Repair overweight offspring during evaluation by dropping their worst
+     * benefit/volumne items, and seed initPopulation greedily
+     * 
+     * @param repair
+     *           The repair for this GA's catalog and capacity, or null for none
+     */
+    public void setGreedyRepair(GreedyRepair repair) {
+        this.repair = repair;
+    }
+    
+    /**
+     * Breed crossover and mutation offspring in parallel on a ForkJoinPool
+     * 
+     * Each worker fills a disjoint range of the new population. Every fixed
+     * chunk of slots has its own random stream split from the random source,
+     * so a seeded run is reproducible whatever the number of threads.
+     * 
+     * @param pool
+     *           The pool to breed on, or null to breed on the caller thread
+     */
+    public void setParallelBreeding(ForkJoinPool pool) {
+        this.breedingPool = pool;
+    }
+    
+    /**
+     * Run a breeding range over every slot of a population on the breeding pool
+     * 
+     * @param size
+     *           The number of slots to fill
+     * @param range
+     *           The breeding applied to each chunk of slots
+     */
+    private void breedInParallel(int size, BreedingTask.Range range) {
+        int chunks = BreedingTask.chunkCount(size);
+        if (chunks == 0) {
+            return;
+        }
+        // Streams are kept across generations, new chunks get new streams split in order
+        if (this.breedingStreams.length < chunks) {
+            int oldLength = this.breedingStreams.length;
+            this.breedingStreams = Arrays.copyOf(this.breedingStreams, chunks);
+            for (int chunk = oldLength; chunk < chunks; chunk++) {
+                this.breedingStreams[chunk] = this.random.split();
+            }
+        }
+        this.breedingPool.invoke(new BreedingTask(range, this.breedingStreams, 0, chunks, size));
+    }
+    
     /**
      * Traverse each individual to evaluate the fitness & volumne
      * 
      * @param population 
      */
     public void evalPopulation(Population population) {
-        // Volumne
-        population.calculateAndSetVolumne(it); //The update of Volumne of each population count on this
-        // Fitness
-        population.calculateAndSetPopulationFitness(it);
-        // Individuals normalised fitness
-        population.calculateAndSetIndividualsNormalisedFitness();
+        // Volumne, fitness and individuals normalised fitness in one sweep
+        if (this.evaluationPool != null) {
+            population.evaluate(catalog, this.fitnessCache, this.repair, this.evaluationPool, this.evaluationGrainSize);
+        } else {
+            population.evaluate(catalog, this.fitnessCache, this.repair);
+        }
     }
 
+    /**
+     * Evaluate a single individual as evalPopulation would, through the
+     * fitness cache and the repair when they are set
+     * 
+     * @param individual
+     *              The individual to evaluate
+     * @return False when the fitness was not computed: unchanged or cached
+     */
+    boolean evalIndividual(Individual individual) {
+        return Population.evaluate(individual, this.catalog, this.fitnessCache, this.repair);
+    }
+
+    /**
+     * Breed and evaluate the next generation: roulette selection, crossover,
+     * mutation and evaluation, the steps of one turn of the evolution loop
+     * 
+     * @param population
+     *              The evaluated current population
+     * @return The evaluated next population
+     */
+    public Population nextGeneration(Population population) {
+        this.generationsBred++;
+        Population next;
+        if (!this.listeners.isEmpty()) {
+            next = this.nextGenerationMeasured(population);
+        } else {
+            next = this.selectParentPopulation(population);
+            next = this.crossoverPopuation(next);
+            next = this.mutatePopulation(next);
+            this.evalPopulation(next);
+        }
+        if (this.checkpointFile != null && this.generationsBred % this.checkpointInterval == 0) {
+            try {
+                this.checkpoint(this.checkpointFile, next);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Write a checkpoint every interval generations of nextGeneration. Each
+     * checkpoint replaces the previous one once it is completely written.
+     * 
+     * @param file
+     *              The checkpoint file, null to stop checkpointing
+     * @param interval
+     *              Generations between two checkpoints
+     */
+    public void setCheckpointing(Path file, int interval) {
+        if (file != null && interval < 1) {
+            throw new IllegalArgumentException("interval must be at least 1");
+        }
+        this.checkpointFile = file;
+        this.checkpointInterval = interval;
+    }
+
+    /**
+     * Write the population, the generation and the random state to a
+     * checkpoint file, in the format of BinaryFormat
+     * 
+     * @param file
+     *              The checkpoint file
+     * @param population
+     *              The evaluated population to save
+     */
+    public void checkpoint(Path file, Population population) throws IOException {
+        BinaryFormat.writeCheckpoint(file, this.generationsBred, population, this.catalog,
+                                     this.knapsackCapacity, this.random, this.breedingStreams);
+    }
+
+    /**
+     * Continue a run from a checkpoint. The GA must be set up with the same
+     * items, capacity, operators and parallel breeding as the run that wrote
+     * it; the random source and the parallel breeding streams are then
+     * restored, so the resumed run breeds the same generations as the
+     * original would have.
+     * 
+     * @param file
+     *              The checkpoint file
+     * @return The evaluated population saved in the checkpoint
+     */
+    public Population resume(Path file) throws IOException {
+        BinaryFormat.Checkpoint checkpoint = BinaryFormat.readCheckpoint(file, this.catalog);
+        if (checkpoint.knapsackCapacity != this.knapsackCapacity) {
+            throw new IOException(file + ": checkpoint was written for capacity " + checkpoint.knapsackCapacity);
+        }
+        // Streams are split off before the parent state is restored, splitting moves the parent on
+        RandomSource[] streams = new RandomSource[checkpoint.streamStates.length];
+        for (int chunk = 0; chunk < streams.length; chunk++) {
+            streams[chunk] = this.random.split();
+            streams[chunk].setState(checkpoint.streamStates[chunk]);
+        }
+        this.random.setState(checkpoint.randomState);
+        this.breedingStreams = streams;
+        this.generationsBred = checkpoint.generation;
+        return checkpoint.population;
+    }
+
+    /**
+     * Get the number of generations bred by nextGeneration, including those
+     * before a resumed checkpoint
+     * 
+     * @return The generation count
+     */
+    public int getGenerationsBred() {
+        return this.generationsBred;
+    }
+
+    /**
+     * nextGeneration with every phase timed, the metrics go to the listeners
+     */
+    private Population nextGenerationMeasured(Population population) {
+        long allocatedBefore = AllocationCounter.currentThread();
+        long start = System.nanoTime();
+        Population next = this.selectParentPopulation(population);
+        long selected = System.nanoTime();
+        next = this.crossoverPopuation(next);
+        long crossed = System.nanoTime();
+        next = this.mutatePopulation(next);
+        long mutated = System.nanoTime();
+        this.evalPopulation(next);
+        long evaluated = System.nanoTime();
+        long allocatedBytes = allocatedBefore < 0 ? -1 : AllocationCounter.currentThread() - allocatedBefore;
+
+        GenerationSummary summary = GenerationSummary.of(this.generationsBred, next,
+                                                         this.generationsBred % this.diversityInterval == 0);
+        this.lastSummary = summary;
+        this.lastSummarized = next;
+        GenerationMetrics metrics = new GenerationMetrics(summary,
+                selected - start, crossed - selected, mutated - crossed, evaluated - mutated,
+                next.getEvaluationCount(), allocatedBytes);
+        for (EvolutionListener listener : this.listeners) {
+            listener.generationCompleted(metrics);
+        }
+        return next;
+    }
+
+    /**
+     * Receive the metrics of every generation bred by nextGeneration. While
+     * no listener is registered nothing is measured.
+     * 
+     * @param listener
+     *              The listener to add
+     */
+    public void addEvolutionListener(EvolutionListener listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Stop sending metrics to a listener
+     * 
+     * @param listener
+     *              The listener to remove
+     */
+    public void removeEvolutionListener(EvolutionListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * Measure the diversity given to the listeners only every interval
+     * generations, it costs about one full evaluation. Other generations
+     * report NaN.
+     * 
+     * @param interval
+     *              Generations between two measurements, 1 measures all
+     */
+    public void setDiversityInterval(int interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("interval must be at least 1");
+        }
+        this.diversityInterval = interval;
+    }
+    
     /**
      * Judgment of termination conditions.
      * 
@@ -118,11 +459,10 @@ public class GeneticAlgorithm {
      * @return 
      */
     public boolean isFitnessStable(Population population){
-        Individual [] individuals = population.getIndividuals();
         int parent1 , parent2;  
-        parent1 =individuals[0].getFitness(); 
+        parent1 =population.getFittest(0).getFitness(); 
         for (int populationIndex = 1; populationIndex < 10; populationIndex++) {
-                    parent2 =individuals[populationIndex].getFitness(); 
+                    parent2 =population.getFittest(populationIndex).getFitness(); 
                     if (parent1 != parent2) {
                             return false;
                 }
@@ -138,30 +478,29 @@ public class GeneticAlgorithm {
      * @return The individual selected as a parent
      */
     public Population selectParentPopulation(Population population) {	
-            //Population popOne = new Population(this.populationSize, this.knapsackCapacity, this.numItems);
             Population popOne = new Population(this.populationSize, this.knapsackCapacity);
             // Get individuals from the initial population
-	    Individual individuals[] = population.getIndividuals();
-            Individual chosen = null;
-	    //create rouletteWheel with random wedge sizes
-            double populationFitness = population.getPopulationFitness(); 
-                for (int i =0; i< population.populationSize; i++) { 
-                    double rouletteWheelPosition = Math.random();
-                    double spinWheel =0;
-                    for (int j=0;  j<individuals.length; j++) {                  
-                          spinWheel += individuals[j].getNormalizedFitness();
-                          if ( spinWheel >= rouletteWheelPosition ){
-                             chosen = individuals[j];
-                             break;
-                          }
-                }
-                if (chosen == null){
-                   chosen = individuals[population.size()-1];
-                }
-                  popOne.setIndividual(i, chosen);
-                  chosen = null;
-                }   
-                  return popOne;
+            Individual individuals[] = population.getIndividuals();
+            // Lay out the wheel once, then every spin is a binary search
+            this.rouletteWheel.build(population);
+            for (int i =0; i< population.populationSize; i++) { 
+                // A parent drawn twice gets two individuals over one chromosome, copied when one is changed
+                popOne.setIndividual(i, individuals[this.rouletteWheel.spin(this.random)].share());
+            }   
+            return popOne;
+    }
+    
+    /**
+     * Set the number of individuals competing in each tournament
+     * 
+     * @param tournamentSize
+     *              Individuals drawn per tournament, at least 1
+     */
+    public void setTournamentSize(int tournamentSize) {
+        if (tournamentSize < 1) {
+            throw new IllegalArgumentException("tournamentSize must be at least 1");
+        }
+        this.tournamentSize = tournamentSize;
     }
     
 /**
@@ -172,17 +511,29 @@ public class GeneticAlgorithm {
  * @return The individual selected as a parent
  */
     public Individual selectParent(Population population){
-         // Create tournament
-        Population tournament = new Population(this.populationSize, this.knapsackCapacity);
-        // Add random individuals to the tournament
-        population.shuffle();
-        // Randomly insert individuals into the tournament
-        for (int i = 0; i < this.populationSize; i++) {
-            Individual tournamentIndividual = population.getIndividual(i);
-            tournament.setIndividual(i, tournamentIndividual);
+        return this.selectParent(population, this.random);
+    }
+    
+    /**
+     * k-tournament: draw tournamentSize random individuals, with replacement,
+     * and return the fittest. Nothing is allocated, shuffled or sorted, and
+     * the population is only read, so workers can call it concurrently.
+     * 
+     * @param population
+     *              The population to select parent
+     * @param random
+     *              The random source drawing the contestants
+     * @return The individual selected as a parent
+     */
+    Individual selectParent(Population population, RandomSource random){
+        Individual best = population.getIndividual(random.nextInt(population.size()));
+        for (int i = 1; i < this.tournamentSize; i++) {
+            Individual contestant = population.getIndividual(random.nextInt(population.size()));
+            if (contestant.getFitness() > best.getFitness()) {
+                best = contestant;
+            }
         }
-        // Return the best
-        return tournament.getFittest(0);
+        return best;
     }
    
     /**
@@ -192,7 +543,19 @@ public class GeneticAlgorithm {
      * @param pop The population that be added 
      */
     public void addPopulationToGeneration(int offset, Population pop) {
-        this.Generations[offset] = pop;
+        // The listeners' summary of the same population is recorded rather than made again
+        boolean summarized = pop == this.lastSummarized && this.lastSummary.getGeneration() == offset;
+        this.Generations.record(offset, pop, summarized ? this.lastSummary : null);
+    }
+    
+    /**
+     * Set which generations stay reachable through GetAGeneration
+     * 
+     * @param history
+     *              The history policy, GenerationHistory.all() by default
+     */
+    public void setGenerationHistory(GenerationHistory history) {
+        this.Generations = history;
     }
     
     /**
@@ -203,48 +566,23 @@ public class GeneticAlgorithm {
      * @return The new population
      */
     public Population crossoverPopuation(Population population) {
+            if (this.breedingPool != null) {
+                return this.crossoverPopulationInParallel(population);
+            }
             // Create new population
             Population newPopulation = new Population(population.size(), this.knapsackCapacity);
             // Loop over current population by fitness
             for (int populationIndex = 0; populationIndex < population.size(); populationIndex++) {
                     Individual parent1 = population.getFittest(populationIndex);
-                    if (this.crossoverRate > Math.random() && populationIndex >= this.elitismCount) {
-                            // Initialize offspring
-                            Individual offspring = new Individual(parent1.getChromosomeLength(), this.knapsackCapacity);
+                    if (this.crossoverRate > this.random.nextDouble() && populationIndex >= this.elitismCount) {
                             // Find second parent
                             Individual parent2 = this.selectParent(population);
                             
-                            // Use two-points cross-over
-                            int first, second, idx, temp;
-                            SecureRandom rand = new SecureRandom();
-                            first = (int) (Math.random() * (parent1.getChromosomeLength() + 1)); 
-                            second = (int) (Math.random() * (parent1.getChromosomeLength() + 1));
-                            
-                            // Else-if is used for incase the first point equals to the second
-                            if (first > second) { 
-                               temp = first; 
-                               first =second;
-                               second =temp; 
-                            } else if (first == second) {
-                                first = (int) (Math.random() * (parent1.getChromosomeLength() + 1));
-                                second = (int) (Math.random() * (parent1.getChromosomeLength() + 1));
-                            } else if (first == second) {
-                                first = (int) (Math.random() * (parent1.getChromosomeLength() + 1));
-                                second = (int) (Math.random() * (parent1.getChromosomeLength() + 1));
-                            }  
                             // Create offSpring to get genes from parents
-                            Individual offSpring = new Individual(parent1.getChromosomeLength(), this.knapsackCapacity);
+                            Individual offSpring = new Individual(parent1);
                             
-                            // Apply two-points cross-over to the individual
-                            for (int geneIndex = 0; geneIndex < parent1.getChromosomeLength(); geneIndex++) {
-                                if (geneIndex <= first) {
-                                    offSpring.setGene(geneIndex, parent1.getGene(geneIndex));
-                                }else if (geneIndex > first && geneIndex < second) {
-                                    offSpring.setGene(geneIndex, parent2.getGene(geneIndex));
-                                }else if (geneIndex >= second) {
-                                    offSpring.setGene(geneIndex, parent1.getGene(geneIndex));
-                                }
-                            }
+                            // Use two-points cross-over
+                            this.crossoverInto(offSpring, parent2, this.random);
                             // Add new individual to the new population
                             newPopulation.setIndividual(populationIndex, offSpring);
                     } else {
@@ -263,25 +601,17 @@ public class GeneticAlgorithm {
      * @return The mutated population
      */
     public Population mutatePopulation(Population population){
+        if (this.breedingPool != null) {
+            return this.mutatePopulationInParallel(population);
+        }
         // Initialize new population
         Population newPopulation = new Population(this.populationSize, this.knapsackCapacity);
         for (int populationIndex = 0; populationIndex < population.size(); populationIndex++) {
             // Loop over current population by fitness
             Individual individual = population.getFittest(populationIndex);
-            // Loop over individual's genes
-            for (int geneIndex = 0; geneIndex < individual.getChromosomeLength(); geneIndex++) {
-                // Skip mutation if this is an elite individual
-                if(populationIndex>this.elitismCount){
-                    // Determine whether the gene is mutated
-                    if(this.mutationRate>Math.random()){
-                        int newGene = 1;
-                        if(individual.getGene(geneIndex)==1){
-                            newGene = 0;
-                        }
-                        // Mutate gene
-                        individual.setGene(geneIndex, newGene);
-                    }
-                }
+            // Skip mutation if this is an elite individual
+            if(populationIndex>=this.elitismCount){
+                this.mutateIndividual(individual, this.random);
             }
             // Add individual to population
             newPopulation.setIndividual(populationIndex, individual);
@@ -290,13 +620,161 @@ public class GeneticAlgorithm {
         return newPopulation;
     }
     
+    /**
+     * Parallel form of crossoverPopuation
+     * 
+     * The ranking is computed once up front, workers then only read it. The
+     * second parent is drawn by a tournament on the worker's own random stream.
+     * 
+     * @param population
+     *              The population to apply crossover to
+     * @return The new population
+     */
+    private Population crossoverPopulationInParallel(final Population population) {
+        final Population newPopulation = new Population(population.size(), this.knapsackCapacity);
+        population.getFittest(0); // Rank once on the caller thread, workers only read the ranking
+        this.breedInParallel(population.size(), new BreedingTask.Range() {
+            @Override
+            public void breed(int from, int to, RandomSource random) {
+                for (int populationIndex = from; populationIndex < to; populationIndex++) {
+                    Individual parent1 = population.getFittest(populationIndex);
+                    if (crossoverRate > random.nextDouble() && populationIndex >= elitismCount) {
+                        Individual parent2 = selectParent(population, random);
+                        Individual offSpring = new Individual(parent1);
+                        crossoverInto(offSpring, parent2, random);
+                        newPopulation.setIndividual(populationIndex, offSpring);
+                    } else {
+                        newPopulation.setIndividual(populationIndex, parent1);
+                    }
+                }
+            }
+        });
+        return newPopulation;
+    }
+    
+    /**
+     * Parallel form of mutatePopulation
+     * 
+     * Every slot holds its own individual after selection, parents drawn
+     * more than once only share chromosome storage, which is copied on the
+     * first write. Workers therefore mutate in place without racing.
+     * 
+     * @param population
+     *              The population to apply mutation to
+     * @return The mutated population
+     */
+    private Population mutatePopulationInParallel(final Population population) {
+        final Population newPopulation = new Population(this.populationSize, this.knapsackCapacity);
+        population.getFittest(0); // Rank once on the caller thread, workers only read the ranking
+        this.breedInParallel(population.size(), new BreedingTask.Range() {
+            @Override
+            public void breed(int from, int to, RandomSource random) {
+                for (int populationIndex = from; populationIndex < to; populationIndex++) {
+                    Individual individual = population.getFittest(populationIndex);
+                    // Skip mutation if this is an elite individual
+                    if (populationIndex >= elitismCount) {
+                        mutateIndividual(individual, random);
+                    }
+                    newPopulation.setIndividual(populationIndex, individual);
+                }
+            }
+        });
+        return newPopulation;
+    }
+    
+    /**
+     * Two-points cross-over in place: the offspring, a copy of the first
+     * parent, takes the genes between two random points from the second parent
+     * 
+     * @param offSpring
+     *              A copy of the first parent, overwritten in place
+     * @param parent2
+     *              The second parent
+     * @param random
+     *              The random stream drawing the points
+     */
+    void crossoverInto(Individual offSpring, Individual parent2, RandomSource random) {
+        int length = offSpring.getChromosomeLength();
+        int first = random.nextInt(length + 1);
+        int second = random.nextInt(length + 1);
+        // Order the points, equal points leave the first parent unchanged
+        if (first > second) {
+            int temp = first;
+            first = second;
+            second = temp;
+        }
+        offSpring.copyGenes(parent2, first + 1, Math.min(second, length));
+    }
+    
+    /**
+     * Flip each gene of an individual with the mutation probability
+     * 
+     * Rather than one draw per gene, the number of genes skipped before the
+     * next flip is drawn from a geometric distribution, so the cost is
+     * proportional to the number of flips and not to the chromosome length.
+     * 
+     * @param individual
+     *              The individual to mutate in place
+     * @param random
+     *              The random stream to draw from
+     */
+    void mutateIndividual(Individual individual, RandomSource random) {
+        int length = individual.getChromosomeLength();
+        if (this.mutationRate <= 0.0 || length == 0) {
+            return;
+        }
+        if (this.mutationRate >= 1.0) {
+            for (int wordIndex = 0; wordIndex < individual.getChromosomeWords().length; wordIndex++) {
+                individual.flipGenes(wordIndex, -1L);
+            }
+            return;
+        }
+        // Skip = floor(ln(U) / ln(1 - p)) with U uniform in (0, 1]
+        double skipScale = 1.0 / Math.log1p(-this.mutationRate);
+        long gene = -1;
+        int wordIndex = 0;
+        long mask = 0;
+        while (true) {
+            gene += 1 + (long) (Math.log(1.0 - random.nextDouble()) * skipScale);
+            if (gene >= length) {
+                break;
+            }
+            // Gather the flips of a word and apply them together
+            int geneWord = (int) (gene >>> 6);
+            if (geneWord != wordIndex) {
+                if (mask != 0) {
+                    individual.flipGenes(wordIndex, mask);
+                }
+                wordIndex = geneWord;
+                mask = 0;
+            }
+            mask |= 1L << gene;
+        }
+        // No flip at all leaves a shared chromosome shared
+        if (mask != 0) {
+            individual.flipGenes(wordIndex, mask);
+        }
+    }
+    
     /**
      * Get a generation
      * 
      * @param offset
-     * @return The population of the generation you choose
+     * @return The population of the generation you choose, null when the
+     *         history policy did not keep it
      */
     public Population GetAGeneration(int offset) {
-        return this.Generations[offset];
+        return this.Generations.get(offset);
+    }
+    
+    /**
+     * Get the statistics of a generation, available for evicted generations
+     * when the history policy records summaries
+     * 
+     * @param offset
+     * @return The summary of the generation you choose, or null
+     */
+    public GenerationSummary getGenerationSummary(int offset) {
+        return this.Generations.getSummary(offset);
     }    
 }
@@ -0,0 +1,144 @@
+package evolutionarycomputation;
+
+/**
+ * Greedy repair of overweight chromosomes by benefit/volumne ratio.
+ *
+ * An individual over capacity has fitness 0, which gives selection nothing
+ * to work with. Repair drops the packed items with the worst ratio, walking
+ * the catalog's ratio order from its end, until the chromosome fits. With
+ * fill on, it then adds unpacked items from the best ratio down while they
+ * still fit. The repaired genes are written back into the individual, and
+ * its sums are set from the walk so no evaluation pass follows.
+ *
+ * The same walk seeds an initial population: random chromosomes are
+ * repaired and filled, and one starts empty so it becomes the plain greedy
+ * solution.
+ *
+ * @author Ziheng Cong
+ */
+
+public class GreedyRepair {
+    private final ItemCatalog catalog;
+    private final int knapsackCapacity;
+    private final boolean fill;
+    private final int minVolumne; // Below this much free capacity no item fits
+
+    /**
+     * @param catalog
+     *          Stores the benefit & volumne of each item
+     * @param knapsackCapacity
+     *          The capacity repaired chromosomes must fit
+     * @param fill
+     *          Whether repaired chromosomes are also filled greedily
+     */
+    public GreedyRepair(ItemCatalog catalog, int knapsackCapacity, boolean fill) {
+        this.catalog = catalog;
+        this.knapsackCapacity = knapsackCapacity;
+        this.fill = fill;
+        int smallest = Integer.MAX_VALUE;
+        int[] volumnes = catalog.volumnes();
+        for (int item = 0; item < volumnes.length; item++) {
+            smallest = Math.min(smallest, volumnes[item]);
+        }
+        this.minVolumne = smallest;
+        catalog.ratioOrder(); // Sort once up front rather than in the first evaluation
+    }
+
+    /**
+     * Evaluate an individual, then repair it if it is over capacity, or
+     * fill it if filling is on. Individuals already evaluated and unchanged
+     * since were repaired then and are left alone.
+     *
+     * @param individual
+     *          The individual to evaluate
+     * @param catalog
+     *          The catalog of the evaluation, the one this repair was made for
+     * @param cache
+     *          Memo of evaluated chromosomes, null to evaluate directly
+     * @return True when the fitness was computed or repaired, false when
+     *          it came from the cache or the individual was unchanged
+     */
+    public boolean evaluate(Individual individual, ItemCatalog catalog, FitnessCache cache) {
+        if (catalog != this.catalog || individual.knapsackCapacity != this.knapsackCapacity) {
+            throw new IllegalStateException("the repair was made for another catalog or capacity");
+        }
+        boolean changed = individual.isDirty() || individual.needsFullEvaluation(catalog);
+        boolean evaluated = cache != null ? cache.evaluate(individual, catalog) : individual.evaluate(catalog);
+        if (changed && (this.fill || individual.getVolume() > this.knapsackCapacity)) {
+            this.repair(individual, this.fill);
+            return true;
+        }
+        return evaluated;
+    }
+
+    /**
+     * Drop the worst-ratio items until the individual fits, and fill it when
+     * filling is on. The individual is left evaluated.
+     *
+     * @param individual
+     *          The individual to repair in place
+     */
+    public void repair(Individual individual) {
+        this.repair(individual, this.fill);
+    }
+
+    /**
+     * Repair and fill an individual whatever the fill setting, as the
+     * greedy seeding does
+     *
+     * @param individual
+     *          The individual to seed in place
+     */
+    public void seed(Individual individual) {
+        this.repair(individual, true);
+    }
+
+    private void repair(Individual individual, boolean fill) {
+        int[] volumnes = this.catalog.volumnes();
+        int[] benefits = this.catalog.benefits();
+        int[] order = this.catalog.ratioOrder();
+        long volumne = 0;
+        long benefit = 0;
+        long[] words = individual.getChromosomeWords();
+        for (int word = 0; word < words.length; word++) {
+            long bits = words[word];
+            while (bits != 0) {
+                int gene = (word << 6) + Long.numberOfTrailingZeros(bits);
+                volumne += volumnes[gene];
+                benefit += benefits[gene];
+                bits &= bits - 1;
+            }
+        }
+        // Drop from the worst ratio up until the chromosome fits, or until
+        // nothing is left to drop when no chromosome can fit
+        for (int rank = order.length - 1; rank >= 0 && volumne > this.knapsackCapacity; rank--) {
+            int item = order[rank];
+            if (individual.getGene(item) == 1) {
+                individual.setGene(item, 0);
+                volumne -= volumnes[item];
+                benefit -= benefits[item];
+            }
+        }
+        if (fill) {
+            // Add from the best ratio down while anything can still fit
+            for (int rank = 0; rank < order.length && this.knapsackCapacity - volumne >= this.minVolumne; rank++) {
+                int item = order[rank];
+                if (individual.getGene(item) == 0 && volumnes[item] <= this.knapsackCapacity - volumne) {
+                    individual.setGene(item, 1);
+                    volumne += volumnes[item];
+                    benefit += benefits[item];
+                }
+            }
+        }
+        int fitness = volumne <= this.knapsackCapacity ? (int) benefit : 0;
+        individual.setEvaluation(fitness, (int) volumne, (int) benefit, true, this.catalog);
+    }
+
+    public ItemCatalog getCatalog() {
+        return this.catalog;
+    }
+
+    public boolean isFilling() {
+        return this.fill;
+    }
+}
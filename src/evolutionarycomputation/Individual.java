@@ -6,8 +6,6 @@ package evolutionarycomputation;
  */
 
 public class Individual {
-    private Item it; 
-    private Item[] items; 
     final int knapsackCapacity;
     final int CHROMOSOME_LENGTH;
     private int numItems; //=chromosome
@@ -15,7 +13,14 @@ public class Individual {
     private int volumne = -1;
     double normalizedFitness = 0.0 ;
     double cumNormFitness = 0.0;
-    private int[] chromosome;//Define a chromosome
+    private long[] chromosome; // Bit-packed chromosome, 64 genes per word
+    private int benefit = 0; // Benefit of the set genes, a full sum while totalsExact
+    private boolean totalsExact = false; // Volumne & benefit are full sums, updated by the change log
+    private ItemCatalog evaluatedCatalog; // The catalog the sums were computed against
+    private int[] changedGenes; // Genes changed since the sums: gene when set, ~gene when cleared
+    private int changedCount = 0;
+    private boolean dirty = true; // Genes changed, or fitness set, since the last evaluate()
+    private boolean sharedChromosome = false; // The chromosome array may be read by another individual
  
     /**
      * Initializes individual with specific chromosome
@@ -26,9 +31,119 @@ public class Individual {
      *             The size and constrain of the population
      */            
     public Individual(int[] chromosome, int knapsackCapacity) {
-            this.chromosome = chromosome;
             this.CHROMOSOME_LENGTH = chromosome.length; 
             this.knapsackCapacity = knapsackCapacity;  
+            this.chromosome = new long[wordCount(CHROMOSOME_LENGTH)];
+            for (int gene = 0; gene < CHROMOSOME_LENGTH; gene++) {
+                this.setGene(gene, chromosome[gene]);
+            }
+    }
+    
+    /**
+     * Initializes individual from a bit-packed chromosome
+     * 
+     * @param words
+     *             The genes, 64 per word as in getChromosomeWords()
+     * @param chromosomeLength
+     *             The number of genes
+     * @param knapsackCapacity 
+     *             The size and constrain of the population
+     */
+    public Individual(long[] words, int chromosomeLength, int knapsackCapacity) {
+            if (words.length != wordCount(chromosomeLength)) {
+                throw new IllegalArgumentException("expected " + wordCount(chromosomeLength) + " words");
+            }
+            this.CHROMOSOME_LENGTH = chromosomeLength;
+            this.knapsackCapacity = knapsackCapacity;
+            this.chromosome = words.clone();
+            if (this.chromosome.length > 0) {
+                this.chromosome[this.chromosome.length - 1] &= -1L >>> -CHROMOSOME_LENGTH;
+            }
+    }
+    
+    /**
+     * Initializes individual as a copy of another individual's chromosome
+     * 
+     * @param other
+     *             The individual whose genes are copied
+     */
+    public Individual(Individual other) {
+            this.CHROMOSOME_LENGTH = other.CHROMOSOME_LENGTH;
+            this.knapsackCapacity = other.knapsackCapacity;
+            this.chromosome = other.chromosome.clone();
+            // The copy starts from the same sums, so its own changes can be applied as deltas
+            this.fitness = other.fitness;
+            this.volumne = other.volumne;
+            this.benefit = other.benefit;
+            this.totalsExact = other.totalsExact && other.changedCount == 0;
+            this.evaluatedCatalog = other.evaluatedCatalog;
+            this.dirty = other.dirty;
+    }
+    
+    /**
+     * Get an individual with the same genes and cached sums that shares
+     * this one's chromosome storage. The storage is copied on the first
+     * write to either of them, so sharing costs no clone for individuals
+     * that are never changed.
+     * 
+     * @return A new individual reading the same chromosome words
+     */
+    public Individual share() {
+            Individual copy = new Individual(this.CHROMOSOME_LENGTH, this.knapsackCapacity, this.chromosome);
+            copy.fitness = this.fitness;
+            copy.volumne = this.volumne;
+            copy.benefit = this.benefit;
+            copy.totalsExact = this.totalsExact && this.changedCount == 0;
+            copy.evaluatedCatalog = this.evaluatedCatalog;
+            copy.dirty = this.dirty;
+            copy.sharedChromosome = true;
+            this.sharedChromosome = true;
+            return copy;
+    }
+    
+    private Individual(int chromosomeLength, int knapsackCapacity, long[] chromosome) {
+            this.CHROMOSOME_LENGTH = chromosomeLength;
+            this.knapsackCapacity = knapsackCapacity;
+            this.chromosome = chromosome;
+    }
+    
+    /**
+     * Take a private copy of the chromosome before the first write to
+     * storage obtained through share(). Once either side has copied, the
+     * other one still copies on its own first write, which is cheaper than
+     * tracking how many individuals read the array.
+     */
+    private void ensureOwned() {
+        if (this.sharedChromosome) {
+            this.chromosome = this.chromosome.clone();
+            this.sharedChromosome = false;
+        }
+    }
+    
+    /**
+     * Overwrite this individual with another one's genes and cached sums,
+     * reusing the chromosome storage instead of allocating a new one
+     * 
+     * @param other
+     *             The individual to copy, with the same chromosome length
+     */
+    public void copyFrom(Individual other) {
+            if (other.CHROMOSOME_LENGTH != this.CHROMOSOME_LENGTH) {
+                throw new IllegalArgumentException("chromosome lengths differ");
+            }
+            if (this.sharedChromosome) {
+                this.chromosome = other.chromosome.clone();
+                this.sharedChromosome = false;
+            } else {
+                System.arraycopy(other.chromosome, 0, this.chromosome, 0, this.chromosome.length);
+            }
+            this.fitness = other.fitness;
+            this.volumne = other.volumne;
+            this.benefit = other.benefit;
+            this.totalsExact = other.totalsExact && other.changedCount == 0;
+            this.evaluatedCatalog = other.evaluatedCatalog;
+            this.changedCount = 0;
+            this.dirty = other.dirty;
     }
     
     /**
@@ -40,25 +155,70 @@ public class Individual {
      *              The size and constrain of the population
      */
     public Individual(int chromosomeLength, int knapsackCapacity){
+        this(chromosomeLength, knapsackCapacity, RandomSource.unseeded());
+    }
+    
+    /**
+     * Initializes random individual, each gene is 1 with probability 0.5.
+     *
+     * @param chromosomeLength
+     *              The chromosome to give individual
+     * @param knapsackCapacity 
+     *              The size and constrain of the population
+     * @param random
+     *              The random source drawing the genes
+     */
+    public Individual(int chromosomeLength, int knapsackCapacity, RandomSource random){
         this.knapsackCapacity = knapsackCapacity; 
         this.CHROMOSOME_LENGTH = chromosomeLength; 
-        this.chromosome = new int[CHROMOSOME_LENGTH];
-        for (int gene = 0; gene < CHROMOSOME_LENGTH; gene++) { 
-            if(0.5<Math.random()){
-                this.setGene(gene, 1);
-            }
-            else {
-                this.setGene(gene, 0);
-            }
+        this.chromosome = new long[wordCount(CHROMOSOME_LENGTH)];
+        // 64 fair coin flips per draw
+        for (int word = 0; word < this.chromosome.length; word++) {
+            this.chromosome[word] = random.nextLong();
+        }
+        if (this.chromosome.length > 0) {
+            this.chromosome[this.chromosome.length - 1] &= -1L >>> -CHROMOSOME_LENGTH;
         }
     }
     
     /**
-     * Gets individual's chromosome
+     * Number of 64-bit words needed to hold a chromosome
+     * 
+     * @param chromosomeLength
+     *              The number of genes
+     * @return The number of words
+     */
+    static int wordCount(int chromosomeLength) {
+        return (chromosomeLength + 63) >>> 6;
+    }
+    
+    /**
+     * Gets individual's chromosome, one int per gene.
+     * 
+     * The array is unpacked from the bit-packed genes on every call, so
+     * writing to it does not change the individual.
      * 
      * @return The individual's chromosome
      */
     public int[] getChromosome(){
+        int[] genes = new int[CHROMOSOME_LENGTH];
+        for (int gene = 0; gene < CHROMOSOME_LENGTH; gene++) {
+            genes[gene] = this.getGene(gene);
+        }
+        return genes;
+    }
+    
+    /**
+     * Gets individual's bit-packed chromosome. Gene i is bit (i % 64) of
+     * word (i / 64), bits past the chromosome length are always 0.
+     * 
+     * The array may be shared with individuals made by share(), treat it
+     * as read-only. Change genes through setGene, flipGenes or copyGenes,
+     * which copy shared storage before writing.
+     * 
+     * @return The words backing the chromosome
+     */
+    public long[] getChromosomeWords(){
         return this.chromosome;
     }
     
@@ -68,7 +228,7 @@ public class Individual {
      * @return The individual's chromosome length
      */
     public int getChromosomeLength(){
-        return this.chromosome.length;
+        return this.CHROMOSOME_LENGTH;
     }
     
     /**
@@ -78,7 +238,12 @@ public class Individual {
      * @param gene
      */
     public void setGene(int offset,int gene){
-        this.chromosome[offset] = gene;
+        this.checkOffset(offset);
+        this.ensureOwned();
+        long word = this.chromosome[offset >>> 6];
+        long updated = gene == 0 ? word & ~(1L << offset) : word | (1L << offset);
+        this.recordChanges(offset >>> 6, word ^ updated, updated);
+        this.chromosome[offset >>> 6] = updated;
     }
     
     /**
@@ -88,25 +253,161 @@ public class Individual {
      * @return gene
      */
     public int getGene(int offset){
-        return this.chromosome[offset];
+        this.checkOffset(offset);
+        return (int) (this.chromosome[offset >>> 6] >>> offset) & 1;
+    }
+    
+    /**
+     * Reject offsets outside the chromosome, the padding bits of the last
+     * word included
+     */
+    private void checkOffset(int offset){
+        if (offset < 0 || offset >= this.CHROMOSOME_LENGTH) {
+            throw new IndexOutOfBoundsException("gene " + offset + " of a chromosome of length " + this.CHROMOSOME_LENGTH);
+        }
+    }
+    
+    /**
+     * Flip every gene of a word whose bit is set in the mask
+     * 
+     * @param wordIndex
+     *              The index of the 64-gene word
+     * @param mask
+     *              The genes to flip, bits past the chromosome length are ignored
+     */
+    public void flipGenes(int wordIndex, long mask){
+        if (wordIndex == this.chromosome.length - 1) {
+            mask &= -1L >>> -CHROMOSOME_LENGTH;
+        }
+        if (mask == 0) {
+            return;
+        }
+        this.ensureOwned();
+        long updated = this.chromosome[wordIndex] ^ mask;
+        this.recordChanges(wordIndex, mask, updated);
+        this.chromosome[wordIndex] = updated;
+    }
+    
+    /**
+     * Copy the genes [from, to) of another individual into this one
+     * 
+     * @param source
+     *              The individual to copy genes from
+     * @param from
+     *              The first gene copied
+     * @param to
+     *              The gene after the last one copied
+     */
+    public void copyGenes(Individual source, int from, int to){
+        if (from >= to) {
+            return;
+        }
+        this.ensureOwned();
+        long[] genes = source.chromosome;
+        int firstWord = from >>> 6;
+        int lastWord = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (firstWord == lastWord) {
+            this.copyWord(genes, firstWord, firstMask & lastMask);
+            return;
+        }
+        this.copyWord(genes, firstWord, firstMask);
+        if (this.totalsExact) {
+            // Record the genes that differ so the sums can follow the copy
+            for (int word = firstWord + 1; word < lastWord; word++) {
+                this.copyWord(genes, word, -1L);
+            }
+        } else {
+            System.arraycopy(genes, firstWord + 1, this.chromosome, firstWord + 1, lastWord - firstWord - 1);
+            this.dirty = true;
+        }
+        this.copyWord(genes, lastWord, lastMask);
+    }
+    
+    /**
+     * Copy the masked genes of one word from another chromosome
+     */
+    private void copyWord(long[] genes, int wordIndex, long mask){
+        long word = this.chromosome[wordIndex];
+        long updated = (word & ~mask) | (genes[wordIndex] & mask);
+        this.recordChanges(wordIndex, word ^ updated, updated);
+        this.chromosome[wordIndex] = updated;
+    }
+    
+    /**
+     * Log the changed genes of a word for delta evaluation. When the log is
+     * full the sums are dropped and the next evaluation is a full one.
+     * 
+     * @param wordIndex
+     *              The index of the 64-gene word
+     * @param changed
+     *              The genes of the word that changed
+     * @param updated
+     *              The word after the change
+     */
+    private void recordChanges(int wordIndex, long changed, long updated){
+        if (changed != 0) {
+            this.dirty = true;
+        }
+        if (!this.totalsExact || changed == 0) {
+            return;
+        }
+        if (this.changedGenes == null) {
+            this.changedGenes = new int[Math.max(16, CHROMOSOME_LENGTH >>> 4)];
+        }
+        if (this.changedCount + Long.bitCount(changed) > this.changedGenes.length) {
+            this.invalidateEvaluation();
+            return;
+        }
+        while (changed != 0) {
+            int bit = Long.numberOfTrailingZeros(changed);
+            int gene = (wordIndex << 6) + bit;
+            this.changedGenes[this.changedCount++] = (updated & (1L << bit)) != 0 ? gene : ~gene;
+            changed &= changed - 1;
+        }
+    }
+    
+    /**
+     * Forget the cached volumne & benefit sums, the next evaluate() does a
+     * full pass over the chromosome
+     */
+    public void invalidateEvaluation(){
+        this.totalsExact = false;
+        this.changedCount = 0;
+        this.dirty = true;
+    }
+    
+    /**
+     * Whether the fitness & volumne may be out of date: the genes changed,
+     * or they were set from outside, since the last evaluate()
+     * 
+     * @return True when evaluate() has work to do
+     */
+    public boolean isDirty(){
+        return this.dirty;
     }
     
     /**
      * Calculate and set  individual's fitness
      * 
-     * @param it 
-     *         Store the fitness & volumen of each individual
+     * @param catalog 
+     *         Stores the benefit & volumne of each item
      */
-    public void calculateAndSetFitness(Item it){ 
+    public void calculateAndSetFitness(ItemCatalog catalog){ 
+        this.invalidateEvaluation();
         this.fitness = 0;
-        this.items = it.getItem(); 
-        for (int gene = 0; gene < this.chromosome.length; gene++) {
-            if (this.getVolume() <= this.knapsackCapacity ) {
-                // Multiply the fitness and item to get the fitness of each individual
-                this.fitness = this.fitness + this.chromosome[gene] * items[gene].getBENEFIT();
-            } else{
-                // If the volume of the individual exceed its capacity then the fitness is 0
-                this.fitness = 0;
+        // If the volume of the individual exceed its capacity then the fitness is 0
+        if (this.getVolume() <= this.knapsackCapacity) {
+            int[] benefits = catalog.benefits();
+            // Sum the benefit of every item whose gene is set
+            for (int word = 0; word < this.chromosome.length; word++) {
+                long bits = this.chromosome[word];
+                while (bits != 0) {
+                    int gene = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    this.fitness = this.fitness + benefits[gene];
+                    bits &= bits - 1;
+                }
             }
         }
         this.setFitness(this.fitness);
@@ -115,25 +416,155 @@ public class Individual {
     /**
      * Calculate and set individual's volumne
      * 
-     * @param it 
-     *         Store the fitness & volumen of each individual
+     * @param catalog 
+     *         Stores the benefit & volumne of each item
      */
-    public void calculateAndSetVolumne(Item it){  
+    public void calculateAndSetVolumne(ItemCatalog catalog){  
+        this.invalidateEvaluation();
         this.volumne = 0;
-        this.items = it.getItem();
-        for (int gene = 0; gene < this.chromosome.length; gene++) {
-            // Multiply the volumne and item to get the volumne of each individual
-            this.volumne = this.volumne + this.chromosome[gene] * items[gene].getVOLUMNE(); 
+        int[] volumnes = catalog.volumnes();
+        // Sum the volumne of every item whose gene is set
+        for (int word = 0; word < this.chromosome.length; word++) {
+            long bits = this.chromosome[word];
+            while (bits != 0) {
+                int gene = (word << 6) + Long.numberOfTrailingZeros(bits);
+                this.volumne = this.volumne + volumnes[gene]; 
+                bits &= bits - 1;
+            }
         }
         this.setVolume(this.volumne);
     }
     
+    /**
+     * Calculate and set individual's volumne & fitness
+     * 
+     * An individual that is not dirty and was last evaluated against the
+     * same catalog is skipped. When the sums of a previous evaluation are
+     * still exact, only the genes changed since then are applied,
+     * O(changes) instead of O(length).
+     * Otherwise the chromosome is walked once for volumne and benefit.
+     * Once the volumne exceeds the capacity the fitness is 0, so the rest of
+     * the walk only sums volumnes; getVolume() stays the full volumne of
+     * an overweight individual.
+     * 
+     * @param catalog 
+     *         Stores the benefit & volumne of each item
+     * @return False when the individual was skipped as unchanged
+     */
+    public boolean evaluate(ItemCatalog catalog){
+        if (!this.dirty && this.evaluatedCatalog == catalog) {
+            return false;
+        }
+        this.dirty = false;
+        int[] volumnes = catalog.volumnes();
+        int[] benefits = catalog.benefits();
+        if (this.totalsExact && this.evaluatedCatalog == catalog) {
+            for (int i = 0; i < this.changedCount; i++) {
+                int gene = this.changedGenes[i];
+                if (gene >= 0) {
+                    this.volumne += volumnes[gene];
+                    this.benefit += benefits[gene];
+                } else {
+                    this.volumne -= volumnes[~gene];
+                    this.benefit -= benefits[~gene];
+                }
+            }
+            this.changedCount = 0;
+            this.fitness = this.volumne <= this.knapsackCapacity ? this.benefit : 0;
+            return true;
+        }
+        int volumneSum = 0;
+        int benefitSum = 0;
+        this.evaluatedCatalog = catalog;
+        this.changedCount = 0;
+        for (int word = 0; word < this.chromosome.length; word++) {
+            long bits = this.chromosome[word];
+            while (bits != 0) {
+                int gene = (word << 6) + Long.numberOfTrailingZeros(bits);
+                volumneSum += volumnes[gene];
+                if (volumneSum > this.knapsackCapacity) {
+                    // Over capacity, the fitness is 0 whatever the remaining genes are
+                    this.volumne = volumneSum + this.volumneFrom(volumnes, word, bits & (bits - 1));
+                    this.fitness = 0;
+                    this.totalsExact = false;
+                    return true;
+                }
+                benefitSum += benefits[gene];
+                bits &= bits - 1;
+            }
+        }
+        this.volumne = volumneSum;
+        this.benefit = benefitSum;
+        this.fitness = benefitSum;
+        this.totalsExact = true;
+        return true;
+    }
+    
+    /**
+     * Sum of the volumnes of the set genes from a word on, the bits given
+     * standing for what is left of that word
+     */
+    private int volumneFrom(int[] volumnes, int word, long bits) {
+        int volumneSum = 0;
+        while (true) {
+            while (bits != 0) {
+                volumneSum += volumnes[(word << 6) + Long.numberOfTrailingZeros(bits)];
+                bits &= bits - 1;
+            }
+            if (++word == this.chromosome.length) {
+                return volumneSum;
+            }
+            bits = this.chromosome[word];
+        }
+    }
+    
+    /**
+     * Whether evaluate() would walk the whole chromosome: the individual is
+     * dirty and has no exact sums for the catalog to update
+     */
+    boolean needsFullEvaluation(ItemCatalog catalog){
+        return this.evaluatedCatalog != catalog || (this.dirty && !this.totalsExact);
+    }
+    
+    boolean hasExactTotals(){
+        return this.totalsExact && this.changedCount == 0;
+    }
+    
+    int getBenefitSum(){
+        return this.benefit;
+    }
+    
+    /**
+     * Take the result of evaluating an identical chromosome
+     * 
+     * @param fitness
+     *          The fitness
+     * @param volumne
+     *          The volumne
+     * @param benefit
+     *          The benefit sum, used when exact
+     * @param exact
+     *          Whether volumne & benefit are full sums delta evaluation can update
+     * @param catalog
+     *          The catalog the result was computed against
+     */
+    void setEvaluation(int fitness, int volumne, int benefit, boolean exact, ItemCatalog catalog){
+        this.fitness = fitness;
+        this.volumne = volumne;
+        this.benefit = benefit;
+        this.totalsExact = exact;
+        this.changedCount = 0;
+        this.evaluatedCatalog = catalog;
+        this.dirty = false;
+    }
+    
     /**
      * Save individual's fitness
      * 
      * @param fitness 
      */
     public void setFitness(int fitness){
+        this.invalidateEvaluation();
         this.fitness = fitness;
     }
     
@@ -152,6 +583,7 @@ public class Individual {
      * @param volumne 
      */
     public void setVolume(int volumne){
+        this.invalidateEvaluation();
         this.volumne = volumne;
     }
     
@@ -206,9 +638,23 @@ public class Individual {
      * @return string representation of the chromosome
      */
     public String toString(){
-        String output = "";
-        for (int gene = 0; gene < this.chromosome.length; gene++) {
-            output += this.chromosome[gene] + " "; 
+        return appendChromosome(new StringBuilder(2 * CHROMOSOME_LENGTH), this.chromosome, CHROMOSOME_LENGTH).toString();
+    }
+
+    /**
+     * Append packed genes as "0 1 1 ... ", the format of toString
+     * 
+     * @param output
+     *          The builder to append to
+     * @param words
+     *          Packed genes, gene i in bit i % 64 of word i / 64
+     * @param chromosomeLength
+     *          The number of genes
+     * @return The output builder
+     */
+    static StringBuilder appendChromosome(StringBuilder output, long[] words, int chromosomeLength) {
+        for (int gene = 0; gene < chromosomeLength; gene++) {
+            output.append((words[gene >>> 6] >>> gene & 1L) == 0 ? '0' : '1').append(' ');
         }
         return output;
     }
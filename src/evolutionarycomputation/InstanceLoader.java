@@ -0,0 +1,498 @@
+package evolutionarycomputation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.OptionalLong;
+
+/**
+ * Reads knapsack instances from files into an ItemCatalog.
+ *
+ * The file is streamed through a FileChannel into a 64 KiB buffer, and
+ * numbers are parsed straight from the bytes into growing int columns. No
+ * String is built per line or per item. Strings are only made for
+ * headers and keywords, a handful per file.
+ *
+ * Formats:
+ * <ul>
+ * <li>CSV: one item per row, volumne then benefit. An optional header row
+ * picks the columns by name instead: volumne, volume or weight, and
+ * benefit, profit or value. Other columns are ignored. Comment lines start
+ * with #, and "# capacity=995" and "# optimum=8373" give the capacity and
+ * the known optimum.</li>
+ * <li>PISINGER: the generated instances of D. Pisinger. A name line, then
+ * "n", "c", "z" and "time" lines, then "index,profit,weight,x" rows. Only
+ * the first instance of a file holding several is read.</li>
+ * <li>PLAIN: "n capacity" followed by n "profit weight" lines, as in the
+ * OR-Library style and the low-dimensional instance sets.</li>
+ * <li>BINARY: the memory-mapped instance file of BinaryFormat.</li>
+ * </ul>
+ *
+ * @author Ziheng Cong
+ */
+
+public final class InstanceLoader {
+    /**
+     * The file formats understood by the loader
+     */
+    public enum Format {
+        CSV,
+        PISINGER,
+        PLAIN,
+        BINARY
+    }
+
+    private InstanceLoader() {
+    }
+
+    /**
+     * Load an instance, choosing the format from the file: a BinaryFormat
+     * instance file is BINARY, a .csv name is CSV, a file starting with a
+     * number is PLAIN, anything else PISINGER
+     *
+     * @param file
+     *          The instance file
+     * @return The instance
+     */
+    public static KnapsackInstance load(Path file) throws IOException {
+        return load(file, detect(file));
+    }
+
+    /**
+     * Load an instance in a given format
+     *
+     * @param file
+     *          The instance file
+     * @param format
+     *          The format of the file
+     * @return The instance
+     */
+    public static KnapsackInstance load(Path file, Format format) throws IOException {
+        if (format == Format.BINARY) {
+            return BinaryFormat.readInstance(file);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Scanner in = new Scanner(channel);
+            String name = String.valueOf(file.getFileName());
+            try {
+                switch (format) {
+                    case CSV:
+                        return loadCsv(in, name);
+                    case PISINGER:
+                        return loadPisinger(in);
+                    default:
+                        return loadPlain(in, name);
+                }
+            } catch (IOException e) {
+                throw new IOException(file + " line " + in.line + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Format guess of load(Path). The content is checked before the file
+     * name, because Pisinger's own files are named knapPI_*.csv.
+     */
+    static Format detect(Path file) throws IOException {
+        if (BinaryFormat.isInstanceFile(file)) {
+            return Format.BINARY;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Scanner in = new Scanner(channel);
+            in.skipWhitespace();
+            if (in.isNumberNext()) {
+                // Headerless CSV or plain numbers
+                return isCsvName(file) ? Format.CSV : Format.PLAIN;
+            }
+            if (in.peek() == '#') {
+                return Format.CSV;
+            }
+            // Pisinger: a name line, then "n <items>" and "c <capacity>"; anything else is a CSV header
+            in.skipLine();
+            in.skipWhitespace();
+            if (in.peek() == 'n' || in.peek() == 'c') {
+                in.read();
+                int next = in.peek();
+                if (next == ' ' || next == '\t') {
+                    return Format.PISINGER;
+                }
+            }
+            return isCsvName(file) ? Format.CSV : Format.PISINGER;
+        }
+    }
+
+    private static boolean isCsvName(Path file) {
+        return String.valueOf(file.getFileName()).toLowerCase().endsWith(".csv");
+    }
+
+    private static KnapsackInstance loadCsv(Scanner in, String name) throws IOException {
+        int volumneColumn = 0;
+        int benefitColumn = 1;
+        long capacity = -1;
+        OptionalLong optimum = OptionalLong.empty();
+        boolean header = false;
+        IntColumn volumnes = new IntColumn(1024);
+        IntColumn benefits = new IntColumn(1024);
+
+        while (true) {
+            in.skipBlank();
+            int next = in.peek();
+            if (next == -1) {
+                break;
+            }
+            if (next == '\n') {
+                in.skipLine();
+                continue;
+            }
+            if (next == '#') {
+                in.read();
+                in.skipBlank();
+                String key = in.readWord().toLowerCase();
+                if (key.equals("capacity") || key.equals("optimum")) {
+                    in.skipBlank();
+                    if (in.peek() == '=' || in.peek() == ':') {
+                        in.read();
+                    }
+                    long value = in.readLong();
+                    if (key.equals("capacity")) {
+                        capacity = value;
+                    } else {
+                        optimum = OptionalLong.of(value);
+                    }
+                }
+                in.skipLine();
+                continue;
+            }
+            if (!header && volumnes.size == 0 && !in.isNumberNext()) {
+                // Header row: find the columns by name
+                header = true;
+                volumneColumn = -1;
+                benefitColumn = -1;
+                for (int column = 0; ; column++) {
+                    String title = in.readField().trim().toLowerCase();
+                    if (title.equals("volumne") || title.equals("volume") || title.equals("weight")) {
+                        volumneColumn = column;
+                    } else if (title.equals("benefit") || title.equals("profit") || title.equals("value")) {
+                        benefitColumn = column;
+                    }
+                    if (!in.skipSeparator()) {
+                        break;
+                    }
+                }
+                if (volumneColumn < 0 || benefitColumn < 0) {
+                    throw new IOException("header needs a volumne and a benefit column");
+                }
+                in.skipLine();
+                continue;
+            }
+            long volumne = Long.MIN_VALUE;
+            long benefit = Long.MIN_VALUE;
+            for (int column = 0; ; column++) {
+                in.skipBlank();
+                if (column == volumneColumn) {
+                    volumne = in.readLong();
+                } else if (column == benefitColumn) {
+                    benefit = in.readLong();
+                } else {
+                    in.skipField();
+                }
+                in.skipBlank();
+                if (!in.skipSeparator()) {
+                    break;
+                }
+            }
+            if (in.peek() != '\n' && in.peek() != -1) {
+                throw new IOException("unexpected character '" + (char) in.peek() + "'");
+            }
+            if (volumne == Long.MIN_VALUE || benefit == Long.MIN_VALUE) {
+                throw new IOException("row is missing the volumne or the benefit");
+            }
+            volumnes.add(toInt(volumne, "volumne"));
+            benefits.add(toInt(benefit, "benefit"));
+            in.skipLine();
+        }
+        if (capacity < 0) {
+            throw new IOException("no \"# capacity=\" line");
+        }
+        return new KnapsackInstance(name, new ItemCatalog(volumnes.toArray(), benefits.toArray()),
+                                    toInt(capacity, "capacity"), optimum);
+    }
+
+    private static KnapsackInstance loadPisinger(Scanner in) throws IOException {
+        in.skipWhitespace();
+        String name = in.readField().trim();
+        in.skipLine();
+        long items = -1;
+        long capacity = -1;
+        OptionalLong optimum = OptionalLong.empty();
+        while (true) {
+            in.skipWhitespace();
+            if (in.peek() == -1) {
+                throw new IOException("no items");
+            }
+            if (in.isNumberNext()) {
+                break;
+            }
+            String key = in.readWord();
+            if (key.equals("n")) {
+                items = in.readLong();
+            } else if (key.equals("c")) {
+                capacity = in.readLong();
+            } else if (key.equals("z")) {
+                optimum = OptionalLong.of(in.readLong());
+            }
+            in.skipLine();
+        }
+        if (items < 0 || capacity < 0) {
+            throw new IOException("missing \"n\" or \"c\" line");
+        }
+        int count = toInt(items, "n");
+        int[] volumnes = new int[count];
+        int[] benefits = new int[count];
+        for (int item = 0; item < count; item++) {
+            in.nextLong(); // Item number
+            benefits[item] = toInt(in.nextLong(), "profit");
+            volumnes[item] = toInt(in.nextLong(), "weight");
+            in.nextLong(); // Membership in the optimal solution
+        }
+        return new KnapsackInstance(name, new ItemCatalog(volumnes, benefits), toInt(capacity, "capacity"), optimum);
+    }
+
+    private static KnapsackInstance loadPlain(Scanner in, String name) throws IOException {
+        int count = toInt(in.nextLong(), "n");
+        int capacity = toInt(in.nextLong(), "capacity");
+        int[] volumnes = new int[count];
+        int[] benefits = new int[count];
+        for (int item = 0; item < count; item++) {
+            benefits[item] = toInt(in.nextLong(), "profit");
+            volumnes[item] = toInt(in.nextLong(), "weight");
+        }
+        return new KnapsackInstance(name, new ItemCatalog(volumnes, benefits), capacity, OptionalLong.empty());
+    }
+
+    private static int toInt(long value, String what) throws IOException {
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IOException(what + " " + value + " is out of range");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Growing int array
+     */
+    private static final class IntColumn {
+        int[] values;
+        int size = 0;
+
+        IntColumn(int capacity) {
+            this.values = new int[capacity];
+        }
+
+        void add(int value) {
+            if (this.size == this.values.length) {
+                this.values = Arrays.copyOf(this.values, this.values.length * 2);
+            }
+            this.values[this.size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(this.values, this.size);
+        }
+    }
+
+    /**
+     * Byte-level reader over a channel, tracking the line number
+     */
+    private static final class Scanner {
+        private final FileChannel channel;
+        private final byte[] bytes = new byte[1 << 16];
+        private final ByteBuffer buffer = ByteBuffer.wrap(this.bytes);
+        private int position = 0;
+        private int limit = 0;
+        int line = 1;
+
+        Scanner(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Next byte without consuming it, -1 at end of file
+         */
+        int peek() throws IOException {
+            if (this.position == this.limit && !this.fill()) {
+                return -1;
+            }
+            return this.bytes[this.position] & 0xFF;
+        }
+
+        int read() throws IOException {
+            int next = this.peek();
+            if (next != -1) {
+                this.position++;
+                if (next == '\n') {
+                    this.line++;
+                }
+            }
+            return next;
+        }
+
+        private boolean fill() throws IOException {
+            this.buffer.clear();
+            int read;
+            do {
+                read = this.channel.read(this.buffer);
+            } while (read == 0);
+            this.position = 0;
+            this.limit = Math.max(read, 0);
+            return read > 0;
+        }
+
+        /**
+         * Skip spaces, tabs and carriage returns
+         */
+        void skipBlank() throws IOException {
+            int next = this.peek();
+            while (next == ' ' || next == '\t' || next == '\r') {
+                this.position++;
+                next = this.peek();
+            }
+        }
+
+        /**
+         * Skip blanks and line breaks
+         */
+        void skipWhitespace() throws IOException {
+            int next = this.peek();
+            while (next == ' ' || next == '\t' || next == '\r' || next == '\n') {
+                this.read();
+                next = this.peek();
+            }
+        }
+
+        /**
+         * Consume the rest of the line including its line break
+         */
+        void skipLine() throws IOException {
+            int next;
+            do {
+                next = this.read();
+            } while (next != '\n' && next != -1);
+        }
+
+        /**
+         * Consume a field separator if one is next
+         *
+         * @return Whether a separator was consumed
+         */
+        boolean skipSeparator() throws IOException {
+            int next = this.peek();
+            if (next == ',' || next == ';') {
+                this.position++;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Consume the rest of a field up to a separator or the line end
+         */
+        void skipField() throws IOException {
+            int next = this.peek();
+            while (next != ',' && next != ';' && next != '\n' && next != -1) {
+                this.position++;
+                next = this.peek();
+            }
+        }
+
+        boolean isNumberNext() throws IOException {
+            int next = this.peek();
+            return (next >= '0' && next <= '9') || next == '-' || next == '+';
+        }
+
+        /**
+         * Parse an integer after optional blanks. A fractional part of
+         * zeros, as in 12.0, is accepted.
+         */
+        long readLong() throws IOException {
+            this.skipBlank();
+            boolean negative = false;
+            int next = this.peek();
+            if (next == '-' || next == '+') {
+                negative = next == '-';
+                this.position++;
+                next = this.peek();
+            }
+            if (next < '0' || next > '9') {
+                throw new IOException("expected a number");
+            }
+            long value = 0;
+            while (next >= '0' && next <= '9') {
+                if (value > (Long.MAX_VALUE - (next - '0')) / 10) {
+                    throw new IOException("number too large");
+                }
+                value = value * 10 + (next - '0');
+                this.position++;
+                next = this.peek();
+            }
+            if (next == '.') {
+                this.position++;
+                next = this.peek();
+                while (next >= '0' && next <= '9') {
+                    if (next != '0') {
+                        throw new IOException("expected a whole number");
+                    }
+                    this.position++;
+                    next = this.peek();
+                }
+            }
+            return negative ? -value : value;
+        }
+
+        /**
+         * Parse an integer after any whitespace, line breaks and separators
+         */
+        long nextLong() throws IOException {
+            int next = this.peek();
+            while (next == ' ' || next == '\t' || next == '\r' || next == '\n' || next == ',' || next == ';') {
+                this.read();
+                next = this.peek();
+            }
+            if (next == -1) {
+                throw new IOException("unexpected end of file");
+            }
+            return this.readLong();
+        }
+
+        /**
+         * Read up to a blank, separator, '=' or ':' or the line end
+         */
+        String readWord() throws IOException {
+            StringBuilder word = new StringBuilder();
+            int next = this.peek();
+            while (next != -1 && next != ' ' && next != '\t' && next != '\r' && next != '\n'
+                   && next != ',' && next != ';' && next != '=' && next != ':') {
+                word.append((char) next);
+                this.position++;
+                next = this.peek();
+            }
+            return word.toString();
+        }
+
+        /**
+         * Read up to a separator or the line end
+         */
+        String readField() throws IOException {
+            StringBuilder field = new StringBuilder();
+            int next = this.peek();
+            while (next != ',' && next != ';' && next != '\n' && next != -1) {
+                field.append((char) next);
+                this.position++;
+                next = this.peek();
+            }
+            return field.toString();
+        }
+    }
+}
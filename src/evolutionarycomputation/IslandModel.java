@@ -0,0 +1,273 @@
+package evolutionarycomputation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Island-model genetic algorithm: several GeneticAlgorithm / Population
+ * pairs evolve independently, each on its own thread, and every
+ * migrationInterval generations each island sends copies of its best
+ * migrantCount individuals to its neighbours.
+ *
+ * Migrants travel through lock-free queues, one inbox per island. An
+ * island never waits for its neighbours. It takes whatever has arrived
+ * and replaces its weakest individuals with it.
+ *
+ * @author Ziheng Cong
+ */
+
+public class IslandModel {
+
+    public enum Topology {
+        RING, // Island i sends to island i + 1
+        FULLY_CONNECTED // Every island sends to every other island
+    }
+
+    private final GeneticAlgorithm[] islands;
+    private final Population[] populations;
+    private final List<ConcurrentLinkedQueue<Individual>> inboxes;
+    private final Topology topology;
+    private final int migrationInterval;
+    private final int migrantCount;
+    private final AtomicReference<Individual> best = new AtomicReference<Individual>();
+
+    /**
+     * Initializes the model from ready-made islands
+     *
+     * @param islands
+     *             The genetic algorithm of each island, each with its own random source
+     * @param populations
+     *             The initial population of each island
+     * @param topology
+     *             Which islands receive an island's migrants
+     * @param migrationInterval
+     *             Generations between two migrations
+     * @param migrantCount
+     *             Individuals sent to each neighbour per migration
+     */
+    public IslandModel(GeneticAlgorithm[] islands, Population[] populations, Topology topology,
+                       int migrationInterval, int migrantCount) {
+        if (islands.length != populations.length || islands.length == 0) {
+            throw new IllegalArgumentException("need one population per island and at least one island");
+        }
+        if (migrationInterval < 1) {
+            throw new IllegalArgumentException("migrationInterval must be at least 1");
+        }
+        this.islands = islands.clone();
+        this.populations = populations.clone();
+        this.topology = topology;
+        this.migrationInterval = migrationInterval;
+        this.migrantCount = migrantCount;
+        this.inboxes = new ArrayList<ConcurrentLinkedQueue<Individual>>();
+        for (int island = 0; island < islands.length; island++) {
+            this.inboxes.add(new ConcurrentLinkedQueue<Individual>());
+        }
+    }
+
+    /**
+     * Initializes islands with the same parameters and random populations.
+     * Each island's random source is split from one seed.
+     *
+     * @param islandCount
+     *             The number of islands
+     * @param populationSize
+     *             The number of individuals on each island
+     * @param mutationRate
+     *             The mutation rate of the population
+     * @param crossoverRate
+     *             The crossover rate of the population
+     * @param elitismCount
+     *             The strongest individuals in the population
+     * @param knapsackCapacity
+     *             The size and constrain of the population
+     * @param catalog
+     *             The item catalog which stores benefit & volumne
+     * @param seed
+     *             The seed all island random sources are split from
+     * @param topology
+     *             Which islands receive an island's migrants
+     * @param migrationInterval
+     *             Generations between two migrations
+     * @param migrantCount
+     *             Individuals sent to each neighbour per migration
+     * @return The island model
+     */
+    public static IslandModel create(int islandCount, int populationSize, double mutationRate, double crossoverRate,
+                                     int elitismCount, int knapsackCapacity, ItemCatalog catalog, long seed,
+                                     Topology topology, int migrationInterval, int migrantCount) {
+        RandomSource seeds = new Xoshiro256StarStar(seed);
+        GeneticAlgorithm[] islands = new GeneticAlgorithm[islandCount];
+        Population[] populations = new Population[islandCount];
+        for (int island = 0; island < islandCount; island++) {
+            islands[island] = new GeneticAlgorithm(populationSize, mutationRate, crossoverRate, elitismCount,
+                                                   knapsackCapacity, 1, catalog, catalog.size());
+            islands[island].setGenerationHistory(GenerationHistory.none(false));
+            islands[island].setRandomSource(seeds.split());
+            populations[island] = islands[island].initPopulation(catalog.size());
+        }
+        return new IslandModel(islands, populations, topology, migrationInterval, migrantCount);
+    }
+
+    /**
+     * Evolve every island for a number of generations, one thread per island
+     *
+     * @param generations
+     *             The generations each island runs
+     * @return The best individual found on any island
+     */
+    public Individual run(int generations) {
+        ExecutorService executor = Executors.newFixedThreadPool(this.islands.length);
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int island = 0; island < this.islands.length; island++) {
+                final int index = island;
+                final int runGenerations = generations;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        evolveIsland(index, runGenerations);
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("island run interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("island failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return this.best.get();
+    }
+
+    /**
+     * The loop of one island, run on its own thread
+     */
+    private void evolveIsland(int island, int generations) {
+        GeneticAlgorithm ga = this.islands[island];
+        Population population = this.populations[island];
+        ga.evalPopulation(population);
+        this.offerBest(population.getFittest(0));
+        for (int generation = 1; generation <= generations; generation++) {
+            population = ga.nextGeneration(population);
+            if (generation % this.migrationInterval == 0) {
+                this.emigrate(island, population);
+            }
+            if (this.immigrate(island, population)) {
+                ga.evalPopulation(population);
+            }
+            this.offerBest(population.getFittest(0));
+            this.populations[island] = population;
+        }
+    }
+
+    /**
+     * Send copies of the island's best individuals to its neighbours
+     */
+    private void emigrate(int island, Population population) {
+        Individual[] elite = population.getElite(this.migrantCount);
+        for (int target = 0; target < this.islands.length; target++) {
+            boolean neighbour = this.topology == Topology.RING
+                    ? target == (island + 1) % this.islands.length
+                    : target != island;
+            if (neighbour && target != island) {
+                // Copies, the sender keeps evolving its own individuals
+                for (Individual migrant : elite) {
+                    this.inboxes.get(target).offer(new Individual(migrant));
+                }
+            }
+        }
+    }
+
+    /**
+     * Replace the weakest individuals with the migrants that have arrived
+     *
+     * @return True if any migrant was taken in
+     */
+    private boolean immigrate(int island, Population population) {
+        return takeMigrants(population, this.inboxes.get(island), this.islands[island].getElitismCount());
+    }
+
+    /**
+     * Move migrants from an inbox into the weakest non-elite slots of a
+     * population. Migrants beyond that room stay in the inbox.
+     *
+     * @param population
+     *             The evaluated population receiving the migrants
+     * @param inbox
+     *             The migrants that have arrived
+     * @param elitismCount
+     *             The strongest individuals that are never replaced
+     * @return True if any migrant was taken in
+     */
+    static boolean takeMigrants(Population population, Queue<Individual> inbox, int elitismCount) {
+        int room = population.size() - elitismCount;
+        List<Individual> arrived = new ArrayList<Individual>();
+        Individual migrant;
+        while (arrived.size() < room && (migrant = inbox.poll()) != null) {
+            arrived.add(migrant);
+        }
+        // Weakest slots first, read before setIndividual drops the ranking
+        int[] slots = new int[arrived.size()];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = population.getRankedIndex(population.size() - 1 - i);
+        }
+        for (int i = 0; i < slots.length; i++) {
+            population.setIndividual(slots[i], arrived.get(i));
+        }
+        return slots.length > 0;
+    }
+
+    /**
+     * Keep a copy of the individual if it beats the best found so far
+     */
+    private void offerBest(Individual candidate) {
+        Individual current = this.best.get();
+        while (current == null || candidate.getFitness() > current.getFitness()) {
+            if (this.best.compareAndSet(current, new Individual(candidate))) {
+                return;
+            }
+            current = this.best.get();
+        }
+    }
+
+    /**
+     * Get the best individual found on any island so far
+     *
+     * @return A copy of the best individual, or null before run()
+     */
+    public Individual getBest() {
+        return this.best.get();
+    }
+
+    /**
+     * Get the current population of an island
+     *
+     * @param island
+     * @return The island's population
+     */
+    public Population getPopulation(int island) {
+        return this.populations[island];
+    }
+
+    /**
+     * Get the number of islands
+     *
+     * @return The number of islands
+     */
+    public int getIslandCount() {
+        return this.islands.length;
+    }
+}
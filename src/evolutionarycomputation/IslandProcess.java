@@ -0,0 +1,165 @@
+package evolutionarycomputation;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+
+/**
+ * One island of a DistributedIslandRunner, running in its own JVM.
+ *
+ * The island connects to the coordinator, receives its settings and items,
+ * and evolves its population. Every migration interval it sends its best
+ * individuals and a progress report. Incoming migrants are read without
+ * blocking, so the island never waits for the coordinator or its
+ * neighbours. They wait in an inbox holding at most the non-elite slots of
+ * the population, the oldest migrants dropped first, like the frames the
+ * coordinator queues for a slow island.
+ *
+ * Usage: IslandProcess host port islandId
+ *
+ * @author Ziheng Cong
+ */
+
+public class IslandProcess {
+    private final SocketChannel channel;
+    private final int island;
+    private final MigrantCodec.FrameReader reader = new MigrantCodec.FrameReader();
+    private Selector selector; // Waits for the socket buffer to drain once the channel is non-blocking
+
+    /**
+     * @param channel
+     *          A connected channel to the coordinator
+     * @param island
+     *          The id of this island
+     */
+    IslandProcess(SocketChannel channel, int island) {
+        this.channel = channel;
+        this.island = island;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("usage: IslandProcess host port islandId");
+            System.exit(2);
+        }
+        SocketChannel channel = SocketChannel.open(new InetSocketAddress(args[0], Integer.parseInt(args[1])));
+        try {
+            channel.socket().setTcpNoDelay(true);
+            new IslandProcess(channel, Integer.parseInt(args[2])).run();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Handshake, evolve and report the final best individual
+     */
+    void run() throws IOException {
+        this.write(MigrantCodec.encodeHello(this.island));
+        MigrantCodec.Config config = this.awaitConfig();
+        this.channel.configureBlocking(false);
+        this.selector = Selector.open();
+        try {
+            this.channel.register(this.selector, SelectionKey.OP_WRITE);
+            this.evolve(config);
+        } finally {
+            this.selector.close();
+        }
+    }
+
+    /**
+     * Evolve, exchanging migrants every migration interval
+     */
+    private void evolve(MigrantCodec.Config config) throws IOException {
+        ItemCatalog catalog = config.catalog;
+        GeneticAlgorithm ga = new GeneticAlgorithm(config.populationSize, config.mutationRate, config.crossoverRate,
+                config.elitismCount, config.knapsackCapacity, config.generations, catalog, catalog.size(), config.seed);
+        ga.setGenerationHistory(GenerationHistory.none(false));
+        Population population = ga.initPopulation(catalog.size());
+        ga.evalPopulation(population);
+        ArrayDeque<Individual> inbox = new ArrayDeque<Individual>();
+        int inboxCapacity = Math.max(0, config.populationSize - config.elitismCount); // The most one migration takes in
+
+        for (int generation = 1; generation <= config.generations; generation++) {
+            population = ga.nextGeneration(population);
+            if (generation % config.migrationInterval == 0) {
+                this.write(MigrantCodec.encodeMigrants(this.island, population.getElite(config.migrantCount)));
+                this.write(MigrantCodec.encodeBest(MigrantCodec.BEST, this.island, generation, population.getFittest(0)));
+            }
+            if (!this.receive(inbox, inboxCapacity, config.knapsackCapacity)) {
+                // Coordinator is gone, nobody is left to report to
+                return;
+            }
+            if (IslandModel.takeMigrants(population, inbox, config.elitismCount)) {
+                ga.evalPopulation(population);
+            }
+        }
+        this.write(MigrantCodec.encodeBest(MigrantCodec.DONE, this.island, config.generations, population.getFittest(0)));
+    }
+
+    /**
+     * Block until the CONFIG frame arrives
+     */
+    private MigrantCodec.Config awaitConfig() throws IOException {
+        while (true) {
+            ByteBuffer frame = this.reader.next();
+            if (frame != null) {
+                if (frame.get() == MigrantCodec.CONFIG) {
+                    return MigrantCodec.decodeConfig(frame);
+                }
+                continue;
+            }
+            if (!this.reader.read(this.channel)) {
+                throw new IOException("coordinator closed the connection before sending the configuration");
+            }
+        }
+    }
+
+    /**
+     * Take in the migrant frames that have arrived, without waiting. A full
+     * inbox drops its oldest migrant for each new one.
+     *
+     * @return False when the coordinator closed the connection
+     */
+    private boolean receive(ArrayDeque<Individual> inbox, int capacity, int knapsackCapacity) throws IOException {
+        boolean open = this.reader.read(this.channel);
+        ByteBuffer frame;
+        while ((frame = this.reader.next()) != null) {
+            if (frame.get() != MigrantCodec.MIGRANTS) {
+                continue;
+            }
+            frame.getInt(); // Sender
+            int count = frame.getInt();
+            for (int i = 0; i < count; i++) {
+                // Evaluated again against the local catalog when taken in
+                Individual migrant = MigrantCodec.getIndividual(frame, knapsackCapacity);
+                if (capacity == 0) {
+                    continue;
+                }
+                if (inbox.size() >= capacity) {
+                    inbox.poll();
+                }
+                inbox.add(migrant);
+            }
+        }
+        return open;
+    }
+
+    /**
+     * Write a whole frame. Before the configuration arrives the channel
+     * blocks; afterwards a full socket buffer is waited out in the selector
+     * rather than by spinning.
+     */
+    private void write(ByteBuffer frame) throws IOException {
+        while (frame.hasRemaining()) {
+            if (this.channel.write(frame) == 0) {
+                this.selector.select();
+                this.selector.selectedKeys().clear();
+            }
+        }
+    }
+}
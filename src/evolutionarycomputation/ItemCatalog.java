@@ -0,0 +1,228 @@
+package evolutionarycomputation;
+
+/**
+ *
+ * @author Ziheng Cong
+ */
+
+public final class ItemCatalog {
+    private final int[] volumnes; // Volumne of each item
+    private final int[] benefits; // Benefit of each item
+    private final long totalVolumne;
+    private final long totalBenefit;
+    private volatile int[] ratioOrder; // Item indices by descending benefit/volumne, sorted on first use
+
+    /**
+     * Initializes an immutable catalog from primitive columns
+     *
+     * @param volumnes
+     *             The volumne of each item
+     * @param benefits
+     *             The benefit of each item
+     */
+    public ItemCatalog(int[] volumnes, int[] benefits) {
+        this(volumnes.clone(), benefits.clone(), sum(volumnes), sum(benefits));
+    }
+
+    /**
+     * Takes the columns as they are, with their sums
+     */
+    private ItemCatalog(int[] volumnes, int[] benefits, long totalVolumne, long totalBenefit) {
+        if (volumnes.length != benefits.length) {
+            throw new IllegalArgumentException("volumnes and benefits must have the same length");
+        }
+        this.volumnes = volumnes;
+        this.benefits = benefits;
+        this.totalVolumne = totalVolumne;
+        this.totalBenefit = totalBenefit;
+    }
+
+    /**
+     * Initializes an immutable catalog from Item objects
+     *
+     * @param items
+     *             The items, one per gene
+     */
+    public ItemCatalog(Item[] items) {
+        this(volumnesOf(items), benefitsOf(items));
+    }
+
+    /**
+     * Catalog over columns nobody else holds, taken without a copy
+     */
+    static ItemCatalog wrap(int[] volumnes, int[] benefits) {
+        return new ItemCatalog(volumnes, benefits, sum(volumnes), sum(benefits));
+    }
+
+    private static long sum(int[] column) {
+        long sum = 0;
+        for (int item = 0; item < column.length; item++) {
+            sum += column[item];
+        }
+        return sum;
+    }
+
+    private static int[] volumnesOf(Item[] items) {
+        int[] volumnes = new int[items.length];
+        for (int item = 0; item < items.length; item++) {
+            volumnes[item] = items[item].getVOLUMNE();
+        }
+        return volumnes;
+    }
+
+    private static int[] benefitsOf(Item[] items) {
+        int[] benefits = new int[items.length];
+        for (int item = 0; item < items.length; item++) {
+            benefits[item] = items[item].getBENEFIT();
+        }
+        return benefits;
+    }
+
+    /**
+     * Get the number of items
+     *
+     * @return The number of items in the catalog
+     */
+    public int size() {
+        return this.volumnes.length;
+    }
+
+    /**
+     * Get the volumne of an item
+     *
+     * @param item
+     * @return The item's volumne
+     */
+    public int getVolumne(int item) {
+        return this.volumnes[item];
+    }
+
+    /**
+     * Get the benefit of an item
+     *
+     * @param item
+     * @return The item's benefit
+     */
+    public int getBenefit(int item) {
+        return this.benefits[item];
+    }
+
+    /**
+     * Get the sum of all volumnes
+     *
+     * @return The total volumne
+     */
+    public long getTotalVolumne() {
+        return this.totalVolumne;
+    }
+
+    /**
+     * Get the sum of all benefits
+     *
+     * @return The total benefit
+     */
+    public long getTotalBenefit() {
+        return this.totalBenefit;
+    }
+
+    /**
+     * Get the item at a rank of the benefit/volumne ordering
+     *
+     * @param rank
+     *          0 is the item with the best benefit/volumne ratio
+     * @return The item index
+     */
+    public int getItemByRatio(int rank) {
+        return this.ratioOrder()[rank];
+    }
+
+    /**
+     * Volumne column, shared with evaluation loops. Must not be modified.
+     */
+    int[] volumnes() {
+        return this.volumnes;
+    }
+
+    /**
+     * Benefit column, shared with evaluation loops. Must not be modified.
+     */
+    int[] benefits() {
+        return this.benefits;
+    }
+
+    /**
+     * Item indices by descending benefit/volumne, shared with operators. Must not be modified.
+     */
+    int[] ratioOrder() {
+        int[] order = this.ratioOrder;
+        if (order == null) {
+            // Racing threads sort to the same order, so either result may win
+            order = sortByRatio();
+            this.ratioOrder = order;
+        }
+        return order;
+    }
+
+    /**
+     * Stable merge sort of the item indices by descending benefit/volumne.
+     * Ratios are compared by cross multiplication so no precision is lost.
+     */
+    private int[] sortByRatio() {
+        int[] order = new int[this.volumnes.length];
+        for (int item = 0; item < order.length; item++) {
+            order[item] = item;
+        }
+        int[] buffer = new int[order.length];
+        for (int width = 1; width < order.length; width <<= 1) {
+            for (int low = 0; low < order.length - width; low += width << 1) {
+                int mid = low + width;
+                int high = Math.min(low + (width << 1), order.length);
+                int left = low, right = mid, out = low;
+                while (left < mid && right < high) {
+                    if (compareRatio(order[right], order[left]) < 0) {
+                        buffer[out++] = order[right++];
+                    } else {
+                        buffer[out++] = order[left++];
+                    }
+                }
+                while (left < mid) {
+                    buffer[out++] = order[left++];
+                }
+                while (right < high) {
+                    buffer[out++] = order[right++];
+                }
+                System.arraycopy(buffer, low, order, low, high - low);
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Negative if item a has the better benefit/volumne ratio. Cross
+     * multiplication would make a 0/0 item equal to every other one, so
+     * zero-volumne items are ordered apart: free benefit first, 0/0 last.
+     */
+    private int compareRatio(int a, int b) {
+        int classA = this.ratioClass(a);
+        int classB = this.ratioClass(b);
+        if (classA != classB) {
+            return Integer.compare(classA, classB);
+        }
+        if (classA != 1) {
+            return 0;
+        }
+        return Long.compare((long) this.benefits[b] * this.volumnes[a],
+                            (long) this.benefits[a] * this.volumnes[b]);
+    }
+
+    /**
+     * 0 for a zero-volumne item with benefit, 1 for an item with volumne,
+     * 2 for an item with neither
+     */
+    private int ratioClass(int item) {
+        if (this.volumnes[item] != 0) {
+            return 1;
+        }
+        return this.benefits[item] > 0 ? 0 : 2;
+    }
+}
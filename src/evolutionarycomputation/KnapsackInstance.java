@@ -0,0 +1,61 @@
+package evolutionarycomputation;
+
+import java.util.OptionalLong;
+
+/**
+ * A knapsack problem read from a file: the items, the capacity and, when
+ * the file records it, the optimal total benefit
+ *
+ * @author Ziheng Cong
+ */
+
+public final class KnapsackInstance {
+    private final String name;
+    private final ItemCatalog catalog;
+    private final int knapsackCapacity;
+    private final OptionalLong optimum;
+
+    /**
+     * @param name
+     *          The instance name, the file name when the format has none
+     * @param catalog
+     *          The items
+     * @param knapsackCapacity
+     *          The knapsack capacity
+     * @param optimum
+     *          The best total benefit, if known
+     */
+    public KnapsackInstance(String name, ItemCatalog catalog, int knapsackCapacity, OptionalLong optimum) {
+        this.name = name;
+        this.catalog = catalog;
+        this.knapsackCapacity = knapsackCapacity;
+        this.optimum = optimum;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public ItemCatalog getCatalog() {
+        return this.catalog;
+    }
+
+    public int getKnapsackCapacity() {
+        return this.knapsackCapacity;
+    }
+
+    /**
+     * Get the known optimal total benefit
+     *
+     * @return The optimum, empty when the file does not record it
+     */
+    public OptionalLong getOptimum() {
+        return this.optimum;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s  Items: %d  Capacity: %d  Optimum: %s", this.name, this.catalog.size(),
+                             this.knapsackCapacity, this.optimum.isPresent() ? this.optimum.getAsLong() : "unknown");
+    }
+}
@@ -0,0 +1,206 @@
+package evolutionarycomputation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Binary framing between distributed islands and their coordinator.
+ *
+ * Every frame is an int length followed by that many bytes: a one-byte
+ * type and the payload, all big-endian. An individual is sent as its
+ * fitness, volumne, chromosome length and bit-packed words, so a migrant
+ * costs 12 bytes plus one bit per gene.
+ *
+ * @author Ziheng Cong
+ */
+
+final class MigrantCodec {
+    static final byte HELLO = 1; // island -> coordinator: island id
+    static final byte CONFIG = 2; // coordinator -> island: run settings and items
+    static final byte MIGRANTS = 3; // island -> coordinator -> neighbours: best individuals
+    static final byte BEST = 4; // island -> coordinator: generation and best individual
+    static final byte DONE = 5; // island -> coordinator: final best individual
+
+    private MigrantCodec() {
+    }
+
+    /**
+     * Settings an island process receives from the coordinator
+     */
+    static final class Config {
+        int island;
+        long seed;
+        int generations;
+        int populationSize;
+        double mutationRate;
+        double crossoverRate;
+        int elitismCount;
+        int knapsackCapacity;
+        int migrationInterval;
+        int migrantCount;
+        ItemCatalog catalog;
+    }
+
+    static ByteBuffer encodeHello(int island) {
+        ByteBuffer frame = allocate(4);
+        frame.put(HELLO).putInt(island);
+        return finish(frame);
+    }
+
+    static ByteBuffer encodeConfig(Config config) {
+        int items = config.catalog.size();
+        ByteBuffer frame = allocate(4 + 8 + 4 + 4 + 8 + 8 + 4 + 4 + 4 + 4 + 4 + 8 * items);
+        frame.put(CONFIG).putInt(config.island).putLong(config.seed).putInt(config.generations)
+             .putInt(config.populationSize).putDouble(config.mutationRate).putDouble(config.crossoverRate)
+             .putInt(config.elitismCount).putInt(config.knapsackCapacity)
+             .putInt(config.migrationInterval).putInt(config.migrantCount).putInt(items);
+        for (int item = 0; item < items; item++) {
+            frame.putInt(config.catalog.getVolumne(item));
+        }
+        for (int item = 0; item < items; item++) {
+            frame.putInt(config.catalog.getBenefit(item));
+        }
+        return finish(frame);
+    }
+
+    static Config decodeConfig(ByteBuffer frame) {
+        Config config = new Config();
+        config.island = frame.getInt();
+        config.seed = frame.getLong();
+        config.generations = frame.getInt();
+        config.populationSize = frame.getInt();
+        config.mutationRate = frame.getDouble();
+        config.crossoverRate = frame.getDouble();
+        config.elitismCount = frame.getInt();
+        config.knapsackCapacity = frame.getInt();
+        config.migrationInterval = frame.getInt();
+        config.migrantCount = frame.getInt();
+        int items = frame.getInt();
+        int[] volumnes = new int[items];
+        int[] benefits = new int[items];
+        for (int item = 0; item < items; item++) {
+            volumnes[item] = frame.getInt();
+        }
+        for (int item = 0; item < items; item++) {
+            benefits[item] = frame.getInt();
+        }
+        config.catalog = new ItemCatalog(volumnes, benefits);
+        return config;
+    }
+
+    static ByteBuffer encodeMigrants(int island, Individual[] migrants) {
+        int size = 4 + 4;
+        for (Individual migrant : migrants) {
+            size += individualSize(migrant);
+        }
+        ByteBuffer frame = allocate(size);
+        frame.put(MIGRANTS).putInt(island).putInt(migrants.length);
+        for (Individual migrant : migrants) {
+            putIndividual(frame, migrant);
+        }
+        return finish(frame);
+    }
+
+    /**
+     * Encode a BEST or DONE frame
+     */
+    static ByteBuffer encodeBest(byte type, int island, int generation, Individual best) {
+        ByteBuffer frame = allocate(4 + 4 + individualSize(best));
+        frame.put(type).putInt(island).putInt(generation);
+        putIndividual(frame, best);
+        return finish(frame);
+    }
+
+    /**
+     * Read an individual; the fitness and volumne sent along are restored
+     * as-is, the receiver re-evaluates before trusting them
+     */
+    static Individual getIndividual(ByteBuffer frame, int knapsackCapacity) {
+        int fitness = frame.getInt();
+        int volumne = frame.getInt();
+        int length = frame.getInt();
+        long[] words = new long[Individual.wordCount(length)];
+        for (int word = 0; word < words.length; word++) {
+            words[word] = frame.getLong();
+        }
+        Individual individual = new Individual(words, length, knapsackCapacity);
+        individual.setFitness(fitness);
+        individual.setVolume(volumne);
+        return individual;
+    }
+
+    private static int individualSize(Individual individual) {
+        return 4 + 4 + 4 + 8 * individual.getChromosomeWords().length;
+    }
+
+    private static void putIndividual(ByteBuffer frame, Individual individual) {
+        frame.putInt(individual.getFitness()).putInt(individual.getVolume()).putInt(individual.getChromosomeLength());
+        for (long word : individual.getChromosomeWords()) {
+            frame.putLong(word);
+        }
+    }
+
+    /**
+     * Buffer for a frame: length prefix, type byte and payloadSize bytes
+     */
+    private static ByteBuffer allocate(int payloadSize) {
+        ByteBuffer frame = ByteBuffer.allocate(4 + 1 + payloadSize);
+        frame.putInt(1 + payloadSize);
+        return frame;
+    }
+
+    private static ByteBuffer finish(ByteBuffer frame) {
+        frame.flip();
+        return frame;
+    }
+
+    /**
+     * Accumulates bytes from a non-blocking channel and cuts them into frames
+     */
+    static final class FrameReader {
+        private ByteBuffer buffer = ByteBuffer.allocate(1 << 16); // Write mode between calls
+
+        /**
+         * Read whatever the channel has available
+         *
+         * @return False when the peer closed the connection
+         */
+        boolean read(ReadableByteChannel channel) throws IOException {
+            if (!this.buffer.hasRemaining()) {
+                ByteBuffer larger = ByteBuffer.allocate(this.buffer.capacity() * 2);
+                this.buffer.flip();
+                larger.put(this.buffer);
+                this.buffer = larger;
+            }
+            return channel.read(this.buffer) >= 0;
+        }
+
+        /**
+         * Next complete frame, positioned after its type byte
+         *
+         * @return The frame, or null until more bytes arrive
+         */
+        ByteBuffer next() {
+            this.buffer.flip();
+            try {
+                if (this.buffer.remaining() < 4) {
+                    return null;
+                }
+                int length = this.buffer.getInt(this.buffer.position());
+                if (length < 1) {
+                    throw new IllegalStateException("corrupt frame length " + length);
+                }
+                if (this.buffer.remaining() < 4 + length) {
+                    return null;
+                }
+                this.buffer.getInt();
+                byte[] frame = new byte[length];
+                this.buffer.get(frame);
+                return ByteBuffer.wrap(frame);
+            } finally {
+                this.buffer.compact();
+            }
+        }
+    }
+}
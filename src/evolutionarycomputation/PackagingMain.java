@@ -1,5 +1,9 @@
 package evolutionarycomputation;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import javax.management.JMException;
+
 /**
  *
  * @author Ziheng Cong
@@ -7,13 +11,25 @@ package evolutionarycomputation;
 
 public class PackagingMain {
     public static int maxGenerations = 50; //initialize to given generations
-    public static void main(String[] args) {
+    public static void main(String[] args) throws JMException, IOException, InterruptedException {
         int numItems = 10; //initialize number of items
         int knapsack_Capacity = 40;
         int populationSize  = 10;
         int elitism_count = 1;
         double mutationRate = 0.1;
         double crossoverRate = 0.7;
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : System.nanoTime(); // Same seed, same run
+        ProgressReporter.Verbosity verbosity = args.length > 1
+                ? ProgressReporter.Verbosity.valueOf(args[1]) : ProgressReporter.Verbosity.METRICS;
+        int sampleInterval = args.length > 2 ? Integer.parseInt(args[2]) : 1; // Report every n-th generation
+        // Items and capacity from an instance file (CSV, Pisinger or plain) instead of generated ones
+        KnapsackInstance instance = args.length > 3 && !args[3].equals("-") ? InstanceLoader.load(Paths.get(args[3])) : null;
+        // "steady" replaces the worst members a few offspring at a time instead of whole generations
+        boolean steadyState = args.length > 4 && args[4].equals("steady");
+        if (instance != null) {
+            numItems = instance.getCatalog().size();
+            knapsack_Capacity = instance.getKnapsackCapacity();
+        }
 
         System.out.printf("int maxGenerations = %d;\n" 
                             + "int numItmes = %d;\n"
@@ -22,39 +38,60 @@ public class PackagingMain {
                             + "double crossoverRate = %.2f;\n"
                             + "double constraint = %d;\n"
                             + "int elitism_count = %d;\n" 
+                            + "long seed = %d;\n" 
                             ,maxGenerations, numItems,populationSize, mutationRate,
-                                      crossoverRate, knapsack_Capacity, elitism_count);
+                                      crossoverRate, knapsack_Capacity, elitism_count, seed);
         
-        // Generate random Volumne & Benefit for Item
-        Item[] items = new Item[numItems]; // Create a new array of size numItems
-        Item it = new Item();// Instantiate the Item Class as it
-        // Loop to create Items with random Volumne and Benefit.
-        for (int itemIndex = 0; itemIndex < numItems; itemIndex++) {
-            int volumne = (int) (10 * Math.random()+1); // <= 10
-            int benefit = (int) (10 * Math.random()+1); // <= 10
-            items[itemIndex] = new Item(volumne, benefit); 
+        RandomSource random = new Xoshiro256StarStar(seed);
+        
+        ItemCatalog catalog;
+        if (instance != null) {
+            catalog = instance.getCatalog();
+        } else {
+            // Generate random Volumne & Benefit for Item
+            Item[] items = new Item[numItems]; // Create a new array of size numItems
+            // Loop to create Items with random Volumne and Benefit.
+            for (int itemIndex = 0; itemIndex < numItems; itemIndex++) {
+                int volumne = random.nextInt(10) + 1; // <= 10
+                int benefit = random.nextInt(10) + 1; // <= 10
+                items[itemIndex] = new Item(volumne, benefit); 
+            }
+            catalog = new ItemCatalog(items); // Store volumne & benefit in primitive columns
         }
-        it.setItem(items); // Save to Item class
-        Item[] items1 = it.getItem(); // Import the stored in it into items1
         
-        // Transfer the Item instance "it" which store volumne & benefit to other class
-        Individual indi = new Individual(numItems, knapsack_Capacity);
-        indi.calculateAndSetFitness(it);
-        indi.calculateAndSetVolumne(it);
+        // Transfer the catalog which stores volumne & benefit to other class
+        Individual indi = new Individual(numItems, knapsack_Capacity, random);
+        indi.calculateAndSetFitness(catalog);
+        indi.calculateAndSetVolumne(catalog);
         
-        Population bestPopulation = new Population(populationSize,numItems, knapsack_Capacity,it);
+        Population bestPopulation = new Population(populationSize,numItems, knapsack_Capacity,catalog, random);
         
         // Intial GA object
         GeneticAlgorithm ga = new GeneticAlgorithm(populationSize, mutationRate, 
-                            crossoverRate, elitism_count, knapsack_Capacity, maxGenerations, it, numItems); 
+                            crossoverRate, elitism_count, knapsack_Capacity, maxGenerations, catalog, numItems, random.nextLong()); 
+        // Only the latest population is needed by the loop, earlier ones are kept as summaries
+        ga.setGenerationHistory(GenerationHistory.lastN(1, true));
+        // Phase timings and statistics of each generation over JMX and Flight Recorder
+        EvolutionMetrics metrics = new EvolutionMetrics();
+        metrics.register("PackagingMain");
+        ga.addEvolutionListener(metrics);
+        EvolutionListener flightRecorder = flightRecorderListener();
+        if (flightRecorder != null) {
+            ga.addEvolutionListener(flightRecorder);
+        }
+        // Generation output is written by a background thread, the loop only queues snapshots
+        ProgressReporter reporter = new ProgressReporter(System.out, verbosity, sampleInterval, 1024);
+        ga.addEvolutionListener(reporter);
+        // Diversity is measured for the reported generations only
+        ga.setDiversityInterval(sampleInterval);
 
         // Initialize population
         Population one = ga.initPopulation(numItems);                                                       
-        System.out.println ("\nInitial \n" + one.toString());
-        System.out.println ("       Population fitness: " + one.getPopulationFitness()/one.populationSize + "\n");
 
         // Evaluate population
         ga.evalPopulation(one);
+        reporter.message("\nInitial");
+        reporter.report(0, one);
 
         // Keep track of current generation
 	int generationCount = 0;
@@ -62,21 +99,27 @@ public class PackagingMain {
         // Add population to generations
         ga.addPopulationToGeneration (generationCount, one);
 
+        if (steadyState) {
+            // The evaluation budget of the generational loop, two offspring per step
+            int lambda = 2;
+            int steps = maxGenerations * populationSize / lambda;
+            SteadyStateEngine engine = new SteadyStateEngine(ga, one, lambda);
+            while (generationCount < steps) {
+                    engine.step();
+                    generationCount++;
+                    if (generationCount % sampleInterval == 0 || generationCount == steps) {
+                            bestPopulation = engine.getPopulation();
+                            reporter.report(generationCount, bestPopulation);
+                    }
+            }
+        }
+
         // Start evolution loop
-        while (ga.isTerminationConditionMetOrNot(generationCount, maxGenerations, bestPopulation) == false) {
+        while (!steadyState && ga.isTerminationConditionMetOrNot(generationCount, maxGenerations, bestPopulation) == false) {
                     Population GenNext = ga.GetAGeneration(generationCount);
                     
-                    // Apply Select Paren Population
-                    GenNext = ga.selectParentPopulation(GenNext);
-
-                    // Apply crossover    
-                    GenNext = ga.crossoverPopuation(GenNext); 
-
-                    // Apply mutation
-                    GenNext = ga.mutatePopulation(GenNext);
-                    
-                    // Evaluate population
-                    ga.evalPopulation(GenNext);   
+                    // Apply select parent population, crossover, mutation and evaluate population
+                    GenNext = ga.nextGeneration(GenNext);
                     
                     // Increment the current generation
                     generationCount++;
@@ -84,20 +127,35 @@ public class PackagingMain {
                     // Store the latest Population in Generation
                     ga.addPopulationToGeneration (generationCount, GenNext);   
 
-                    // Display appropriate output for each iteration
+                    // Queue appropriate output for each sampled iteration
                     bestPopulation = GenNext;// Store the best population
-                    System.out.println ("Current Population:\n" + GenNext.toString());
-                    System.out.println("Best solution so far: " + GenNext.getFittest(0).toString() 
-                                                        +"  Fit: " + GenNext.getFittest(0).getFitness()
-                                                            +"  Vol: " + GenNext.getFittest(0).getVolume());
-                    System.out.println("Population fitness:  " + GenNext.getPopulationFitness()/GenNext.populationSize + "\n");
+                    reporter.report(generationCount, GenNext);
 	}
         
-        // Display results
-        System.out.println("BEST POPULATION");
-        System.out.println(bestPopulation.toString());
-        System.out.println("BEST POPULATION FITNESS: " +  bestPopulation.getFittest(0).getFitness());
-        System.out.println("BEST SOLUTION: " + bestPopulation.getFittest(0).toString() + ": " 
-                                        + bestPopulation.getFittest(0).getFitness() + " " + bestPopulation.getFittest(0).getVolume());
+        // Display results once everything queued has been written
+        reporter.reportFinal(generationCount, bestPopulation);
+        reporter.close();
+        if (instance != null && instance.getOptimum().isPresent()) {
+            System.out.println("KNOWN OPTIMUM: " + instance.getOptimum().getAsLong());
+        }
+        if (reporter.getDroppedReports() > 0) {
+            System.out.println("Reports dropped while the output fell behind: " + reporter.getDroppedReports());
+        }
     } 
+
+    /**
+     * The Flight Recorder listener, loaded by name: it is compiled for Java 11
+     * from jfr/, and a Java 8 runtime or one without jdk.jfr cannot link it
+     *
+     * @return The listener, or null when the runtime cannot load it
+     */
+    private static EvolutionListener flightRecorderListener() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return (EvolutionListener) Class.forName("evolutionarycomputation.JfrEvolutionListener")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
 }
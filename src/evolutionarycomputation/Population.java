@@ -1,8 +1,8 @@
 package evolutionarycomputation;
 
 import java.util.Arrays;
-import java.util.Comparator;
-import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ObjIntConsumer;
 
 /**
  *
@@ -10,12 +10,15 @@ import java.util.Random;
  */
 
 public class Population {
-    private Item it;
     private int numItems;
     final int populationSize; // =numofIndividual
     final int knapsackCapacity; 
     public Individual[] population; // Population: the collection of all individuals
     public double populationFitness = -1; // Population fitness
+    private int[] ranking; // Individual indices by descending fitness, valid while rankingValid
+    private long[] rankKeys; // Scratch sort keys: negated fitness in the high half, index in the low half
+    private boolean rankingValid = false;
+    private int evaluationCount = 0; // Fitness computations of the last evaluate()
     
     /**
      * Initializes blank population of individuals
@@ -40,10 +43,28 @@ public class Population {
      *            The size of each individual's chromosome
      * @param knapsackCapacity
      *            The size and constrain of the population
-     * @param it 
-     *            The instance of Item class which stores fitness & volumne
+     * @param catalog 
+     *            The item catalog which stores benefit & volumne
      */
-    public Population(int populationSize,int numItems, int knapsackCapacity, Item it){ 
+    public Population(int populationSize,int numItems, int knapsackCapacity, ItemCatalog catalog){ 
+       this(populationSize, numItems, knapsackCapacity, catalog, RandomSource.unseeded());
+    }
+    
+    /**
+     * Initializes population of random individuals drawn from a random source
+     * 
+     * @param populationSize
+     *            The number of individuals in the population
+     * @param numItems
+     *            The size of each individual's chromosome
+     * @param knapsackCapacity
+     *            The size and constrain of the population
+     * @param catalog 
+     *            The item catalog which stores benefit & volumne
+     * @param random
+     *            The random source drawing the chromosomes
+     */
+    public Population(int populationSize,int numItems, int knapsackCapacity, ItemCatalog catalog, RandomSource random){ 
        this.numItems = numItems; 
        this.knapsackCapacity = knapsackCapacity; 
        this.populationSize = populationSize;
@@ -51,26 +72,44 @@ public class Population {
        // Create every individual in the population 
        for (int individualCount = 0; individualCount < populationSize; individualCount++) {
             // Create an individual, initializing its chromosome to the given length
-            this.population[individualCount] = new Individual(this.numItems, knapsackCapacity);
-            // Set fitness & volumne
-            this.population[individualCount].calculateAndSetVolumne(it); 
-            this.population[individualCount].calculateAndSetFitness(it);  
-        }
-        // Calculate the sum of individual fitness
-        int popFitness =0;
-        for (int i=0; i < this.populationSize; i++ ){
-            popFitness+= this.population[i].getFitness();
-         }
-        this.populationFitness = popFitness;
-        // Calculate the normalized fitness for each individual
-        for (int i=0; i < this.populationSize; i++){
-            this.population[i].normalizedFitness = (this.population[i].getFitness()/this.populationFitness);
+            this.population[individualCount] = new Individual(this.numItems, knapsackCapacity, random);
         }
-        // Calculate the sum of normalized fitness
-        for (int i=0; i < this.populationSize; i++) {
-            for (int j=0; j <= i; j++)
-                this.population[i].cumNormFitness  += this.population[j].normalizedFitness;
+        // Set fitness & volumne, the population fitness and the normalized fitness
+        this.evaluate(catalog);
+    }
+    
+    /**
+     * Initializes population of greedily seeded individuals. Random
+     * chromosomes are repaired to fit and filled by benefit/volumne ratio,
+     * the first individual is the plain greedy solution.
+     * 
+     * @param populationSize
+     *            The number of individuals in the population
+     * @param numItems
+     *            The size of each individual's chromosome
+     * @param knapsackCapacity
+     *            The size and constrain of the population
+     * @param catalog 
+     *            The item catalog which stores benefit & volumne
+     * @param random
+     *            The random source drawing the chromosomes
+     * @param seeding
+     *            The repair filling each chromosome, made for the catalog and capacity
+     */
+    public Population(int populationSize,int numItems, int knapsackCapacity, ItemCatalog catalog, RandomSource random, GreedyRepair seeding){ 
+       this.numItems = numItems; 
+       this.knapsackCapacity = knapsackCapacity; 
+       this.populationSize = populationSize;
+       this.population = new Individual[populationSize];
+       for (int individualCount = 0; individualCount < populationSize; individualCount++) {
+            Individual individual = individualCount == 0
+                    ? new Individual(new long[Individual.wordCount(numItems)], numItems, knapsackCapacity)
+                    : new Individual(this.numItems, knapsackCapacity, random);
+            seeding.seed(individual);
+            this.population[individualCount] = individual;
         }
+        // The individuals are already evaluated, this only sums the population
+        this.evaluate(catalog);
     }
     
     /**
@@ -85,27 +124,147 @@ public class Population {
     /**
      * Find an individual in the population by its fitness
      * 
+     * The ranking is computed once and reused until an individual or the
+     * fitness changes, the individuals array itself is not reordered.
+     * 
      * @param offset
      *            The offset of the individual you want, sorted by fitness. 0 is
      *            the strongest, population.length - 1 is the weakest.
      * @return individual Individual at offset
      */
     public Individual getFittest(int offset){
-        // Sort the individuals in the population according to their fitness
-        Arrays.sort(this.population, new Comparator<Individual>() {
-            @Override
-            public int compare(Individual o1, Individual o2) {
-                if(o1.getFitness()>o2.getFitness()){
-                    return -1;
+        this.ensureRanking();
+        return this.population[this.ranking[offset]];
+    }
+    
+    /**
+     * Get the index in the individuals array of the individual at a rank
+     * 
+     * @param rank
+     *            0 is the strongest, size() - 1 is the weakest
+     * @return The index of the individual
+     */
+    public int getRankedIndex(int rank){
+        this.ensureRanking();
+        return this.ranking[rank];
+    }
+    
+    /**
+     * Visit every individual from the strongest to the weakest
+     * 
+     * @param action
+     *            Called with each individual and its rank
+     */
+    public void forEachByRank(ObjIntConsumer<Individual> action){
+        this.ensureRanking();
+        for (int rank = 0; rank < this.populationSize; rank++) {
+            action.accept(this.population[this.ranking[rank]], rank);
+        }
+    }
+    
+    /**
+     * Get the k fittest individuals, strongest first
+     * 
+     * When the ranking is not cached the k best are found by quickselect and
+     * only they are sorted, O(n + k log k) instead of sorting the population.
+     * 
+     * @param k
+     *            The number of individuals wanted
+     * @return The k fittest individuals
+     */
+    public Individual[] getElite(int k){
+        k = Math.min(k, this.populationSize);
+        Individual[] elite = new Individual[k];
+        if (this.rankingValid) {
+            for (int rank = 0; rank < k; rank++) {
+                elite[rank] = this.population[this.ranking[rank]];
+            }
+            return elite;
+        }
+        long[] keys = this.fillRankKeys();
+        if (k > 0 && k < this.populationSize) {
+            selectSmallest(keys, this.populationSize, k);
+        }
+        Arrays.sort(keys, 0, k);
+        for (int rank = 0; rank < k; rank++) {
+            elite[rank] = this.population[(int) keys[rank]];
+        }
+        return elite;
+    }
+    
+    /**
+     * Drop the cached ranking. Needed only when an individual's fitness is
+     * changed directly, the population's own methods invalidate it themselves.
+     */
+    public void invalidateRanking(){
+        this.rankingValid = false;
+    }
+    
+    /**
+     * Sort the individual indices by descending fitness if the cache is stale.
+     * Ties keep the order of the individuals array, like a stable sort would.
+     */
+    private void ensureRanking(){
+        if (this.rankingValid) {
+            return;
+        }
+        long[] keys = this.fillRankKeys();
+        Arrays.sort(keys, 0, this.populationSize);
+        if (this.ranking == null || this.ranking.length < this.populationSize) {
+            this.ranking = new int[this.populationSize];
+        }
+        for (int rank = 0; rank < this.populationSize; rank++) {
+            this.ranking[rank] = (int) keys[rank];
+        }
+        this.rankingValid = true;
+    }
+    
+    /**
+     * Sort keys that order by descending fitness, then ascending index
+     */
+    private long[] fillRankKeys(){
+        if (this.rankKeys == null || this.rankKeys.length < this.populationSize) {
+            this.rankKeys = new long[this.populationSize];
+        }
+        for (int i = 0; i < this.populationSize; i++) {
+            this.rankKeys[i] = (-(long) this.population[i].getFitness() << 32) | i;
+        }
+        return this.rankKeys;
+    }
+    
+    /**
+     * Quickselect: move the k smallest of keys[0, size) into keys[0, k)
+     */
+    private static void selectSmallest(long[] keys, int size, int k){
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            long pivot = keys[(low + high) >>> 1];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (keys[i] < pivot) {
+                    i++;
                 }
-                else if(o1.getFitness()<o2.getFitness()){
-                    return 1;
+                while (keys[j] > pivot) {
+                    j--;
                 }
-                return 0;
-            }        
-        });
-        // Returns the individual in the sorted offset
-        return this.population[offset];
+                if (i <= j) {
+                    long swap = keys[i];
+                    keys[i] = keys[j];
+                    keys[j] = swap;
+                    i++;
+                    j--;
+                }
+            }
+            if (k - 1 <= j) {
+                high = j;
+            } else if (k - 1 >= i) {
+                low = i;
+            } else {
+                return;
+            }
+        }
     }
     
     /**
@@ -125,18 +284,19 @@ public class Population {
      */
     public void setPopulationFitness(double populationFitness) {
         this.populationFitness = populationFitness;
+        this.rankingValid = false;
     }
     
     /**
      * Calculate and set population fitness
      * 
-     * @param it 
-     *          Store the fitness & volumen of each individual
+     * @param catalog 
+     *          Stores the benefit & volumne of each item
      */
-    public void calculateAndSetPopulationFitness(Item it) {
+    public void calculateAndSetPopulationFitness(ItemCatalog catalog) {
             double popfitness =0.0;
             for (int i=0; i< this.populationSize; i++) {
-                    this.population[i].calculateAndSetFitness(it);
+                    this.population[i].calculateAndSetFitness(catalog);
 			popfitness += this.population[i].getFitness();
             }
             this.setPopulationFitness(popfitness);
@@ -145,15 +305,176 @@ public class Population {
     /**
      * Run in GA and update each time volume of each chromosome
      * 
-     * @param it
-     *          Store the fitness & volumen of each individual
+     * @param catalog
+     *          Stores the benefit & volumne of each item
      */
-    public void calculateAndSetVolumne(Item it) {
+    public void calculateAndSetVolumne(ItemCatalog catalog) {
             for (int i=0; i< this.populationSize; i++) {
-                    this.population[i].calculateAndSetVolumne(it);
+                    this.population[i].calculateAndSetVolumne(catalog);
             }
     } 
     
+    /**
+     * Evaluate every individual and the population in one sweep
+     * 
+     * Each chromosome is walked once for both volumne and fitness, the
+     * population fitness is summed on the way, and a pass over the
+     * individuals then sets the normalized & cumulative normalized fitness.
+     * 
+     * @param catalog 
+     *          Stores the benefit & volumne of each item
+     */
+    public void evaluate(ItemCatalog catalog) {
+            this.evaluate(catalog, (FitnessCache) null);
+    }
+    
+    /**
+     * Evaluate every individual and the population in one sweep, looking up
+     * chromosomes that need a full evaluation in a fitness cache
+     * 
+     * @param catalog 
+     *          Stores the benefit & volumne of each item
+     * @param cache
+     *          Memo of evaluated chromosomes, null to evaluate directly
+     */
+    public void evaluate(ItemCatalog catalog, FitnessCache cache) {
+            this.evaluate(catalog, cache, (GreedyRepair) null);
+    }
+    
+    /**
+     * Evaluate every individual and the population in one sweep, repairing
+     * individuals that changed since their last evaluation
+     * 
+     * @param catalog 
+     *          Stores the benefit & volumne of each item
+     * @param cache
+     *          Memo of evaluated chromosomes, null to evaluate directly
+     * @param repair
+     *          Greedy repair of overweight chromosomes, null for none
+     */
+    public void evaluate(ItemCatalog catalog, FitnessCache cache, GreedyRepair repair) {
+            long popfitness = 0;
+            int evaluated = 0;
+            for (int i=0; i< this.populationSize; i++) {
+                    if (evaluate(this.population[i], catalog, cache, repair)) {
+                            evaluated++;
+                    }
+                    popfitness += this.population[i].getFitness();
+            }
+            this.evaluationCount = evaluated;
+            this.setPopulationFitness(popfitness);
+            this.calculateAndSetNormalisedFitness();
+    }
+    
+    /**
+     * Evaluate the individuals in parallel on a ForkJoinPool
+     * 
+     * The individuals are split into ranges of at most grainSize, each range
+     * is evaluated by one worker and the range fitness sums are reduced on
+     * join. The normalized fitness is then set on the calling thread.
+     * 
+     * @param catalog 
+     *          Stores the benefit & volumne of each item
+     * @param pool
+     *          The pool running the evaluation
+     * @param grainSize
+     *          The largest number of individuals evaluated by one task
+     */
+    public void evaluate(ItemCatalog catalog, ForkJoinPool pool, int grainSize) {
+            this.evaluate(catalog, null, pool, grainSize);
+    }
+    
+    /**
+     * Evaluate the individuals in parallel, with a fitness cache shared by
+     * the workers
+     * 
+     * @param catalog 
+     *          Stores the benefit & volumne of each item
+     * @param cache
+     *          Memo of evaluated chromosomes, null to evaluate directly
+     * @param pool
+     *          The pool running the evaluation
+     * @param grainSize
+     *          The largest number of individuals evaluated by one task
+     */
+    public void evaluate(ItemCatalog catalog, FitnessCache cache, ForkJoinPool pool, int grainSize) {
+            this.evaluate(catalog, cache, null, pool, grainSize);
+    }
+    
+    /**
+     * Evaluate and repair the individuals in parallel, with a fitness cache
+     * shared by the workers
+     * 
+     * @param catalog 
+     *          Stores the benefit & volumne of each item
+     * @param cache
+     *          Memo of evaluated chromosomes, null to evaluate directly
+     * @param repair
+     *          Greedy repair of overweight chromosomes, null for none
+     * @param pool
+     *          The pool running the evaluation
+     * @param grainSize
+     *          The largest number of individuals evaluated by one task
+     */
+    public void evaluate(ItemCatalog catalog, FitnessCache cache, GreedyRepair repair, ForkJoinPool pool, int grainSize) {
+            EvaluationTask task = new EvaluationTask(this.population, catalog, cache, repair, 0, this.populationSize, grainSize);
+            long popfitness = pool.invoke(task);
+            this.evaluationCount = task.getEvaluated();
+            this.setPopulationFitness(popfitness);
+            this.calculateAndSetNormalisedFitness();
+    }
+    
+    /**
+     * Evaluate one individual through the cache and the repair, each when given
+     * 
+     * @return False when the fitness was not computed: unchanged or cached
+     */
+    static boolean evaluate(Individual individual, ItemCatalog catalog, FitnessCache cache, GreedyRepair repair) {
+            if (repair != null) {
+                    return repair.evaluate(individual, catalog, cache);
+            } else if (cache != null) {
+                    return cache.evaluate(individual, catalog);
+            } else {
+                    return individual.evaluate(catalog);
+            }
+    }
+    
+    /**
+     * Get the number of individuals whose fitness the last evaluation
+     * actually computed, leaving out unchanged and cached ones
+     * 
+     * @return The evaluation count of the last evaluate()
+     */
+    public int getEvaluationCount() {
+            return this.evaluationCount;
+    }
+    
+    /**
+     * Set the population fitness and the normalized fitness from the fitness
+     * the individuals already hold, without evaluating them again
+     */
+    void updateFromStoredFitness() {
+            long popfitness = 0;
+            for (int i=0; i< this.populationSize; i++) {
+                    popfitness += this.population[i].getFitness();
+            }
+            this.setPopulationFitness(popfitness);
+            this.calculateAndSetNormalisedFitness();
+    }
+    
+    /**
+     * Set the normalized & cumulative normalized fitness from the population fitness
+     */
+    private void calculateAndSetNormalisedFitness() {
+            double cumFitness = 0.0;
+            for (int i=0; i < this.populationSize; i++) {
+                    Individual individual = this.population[i];
+                    individual.normalizedFitness = individual.getFitness()/this.populationFitness;
+                    cumFitness += individual.normalizedFitness;
+                    individual.cumNormFitness = cumFitness;
+            }
+    }
+    
     /**
      * Calculate and set individuals normalised fitnes
      * 
@@ -166,6 +487,42 @@ public class Population {
             }
     }
 
+    /**
+     * Mean pairwise Hamming distance between chromosomes divided by the
+     * chromosome length: 0 when every individual is the same, about 0.5 for
+     * random chromosomes. Computed from the count of set genes per locus,
+     * O(size * set genes) rather than O(size^2 * length).
+     * 
+     * @return The population diversity in [0, 1]
+     */
+    public double getDiversity() {
+        if (this.populationSize < 2) {
+            return 0.0;
+        }
+        int length = this.population[0].getChromosomeLength();
+        if (length == 0) {
+            return 0.0;
+        }
+        int[] ones = new int[length];
+        for (int i = 0; i < this.populationSize; i++) {
+            long[] words = this.population[i].getChromosomeWords();
+            for (int word = 0; word < words.length; word++) {
+                long bits = words[word];
+                while (bits != 0) {
+                    ones[(word << 6) + Long.numberOfTrailingZeros(bits)]++;
+                    bits &= bits - 1;
+                }
+            }
+        }
+        // Pairs differing at a locus: ones * zeros
+        double differingPairs = 0.0;
+        for (int gene = 0; gene < length; gene++) {
+            differingPairs += (double) ones[gene] * (this.populationSize - ones[gene]);
+        }
+        double pairs = (double) this.populationSize * (this.populationSize - 1) / 2;
+        return differingPairs / pairs / length;
+    }
+    
     /**
      * Get population's size
      * 
@@ -183,6 +540,7 @@ public class Population {
      */
     public void setIndividual(int offset,Individual individual){
         population[offset] = individual;
+        this.rankingValid = false;
     }
     
     /**
@@ -199,7 +557,17 @@ public class Population {
      * @shuffle Random shuffle
      */
     public void shuffle() {
-        Random rnd = new Random();
+        this.shuffle(RandomSource.unseeded());
+    }
+    
+    /**
+     * Fisher-Yates shuffle drawing from a random source
+     * 
+     * @param rnd
+     *          The random source
+     */
+    public void shuffle(RandomSource rnd) {
+        this.rankingValid = false;
         for (int i = population.length - 1; i > 0; i--) {
             int index = rnd.nextInt(i + 1);
             Individual a = population[index];
@@ -0,0 +1,294 @@
+package evolutionarycomputation;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Progress output of an evolution loop, written by a background thread.
+ *
+ * The loop calls report once per generation. Sampled generations are
+ * copied into a small snapshot and offered to a bounded queue. The
+ * snapshot holds the statistics, plus the packed genes when the verbosity
+ * asks for chromosomes. A daemon thread formats the snapshots and writes
+ * them in buffered batches. The loop never waits for I/O and never builds
+ * strings. When the writer falls behind and the queue is full, the report
+ * is dropped and counted instead.
+ *
+ * Registered as an EvolutionListener, the reporter also prints the phase
+ * timings of each generation at METRICS verbosity and above.
+ *
+ * @author Ziheng Cong
+ */
+
+public class ProgressReporter implements EvolutionListener, AutoCloseable {
+    /**
+     * How much each sampled generation reports
+     */
+    public enum Verbosity {
+        QUIET,      // Only the final result
+        SUMMARY,    // Best, mean and worst fitness and diversity
+        METRICS,    // The summary plus phase timings, when registered as a listener
+        BEST,       // Also the chromosome of the fittest individual
+        POPULATION  // Also every chromosome of the population
+    }
+
+    private static final Snapshot END = new Snapshot(); // Tells the writer to stop
+
+    private final Verbosity verbosity;
+    private final int sampleInterval;
+    private final BlockingQueue<Snapshot> queue;
+    private final Writer out;
+    private final Thread writer;
+    private volatile long droppedReports = 0; // Written by the reporting thread only
+    private volatile IOException failure; // First write error of the writer thread
+    private GenerationMetrics lastMetrics; // Latest metrics from the loop thread
+    private boolean closed = false;
+
+    /**
+     * A generation's output, formatted on the writer thread
+     */
+    private static final class Snapshot {
+        String message; // Free text, or null for a generation
+        boolean pending; // True until the writer has written a snapshot someone waits for
+        GenerationSummary summary;
+        GenerationMetrics metrics;
+        String title; // Line before the population listing, null for none
+        int chromosomeLength;
+        long[] bestWords; // Null unless the verbosity includes chromosomes
+        int bestFitness;
+        int bestVolumne;
+        long[][] words; // Null unless the verbosity is POPULATION
+        int[] fitness;
+        int[] volumnes;
+    }
+
+    /**
+     * @param out
+     *          Where the reports go, System.out for the console; it is flushed, not closed
+     * @param verbosity
+     *          How much each sampled generation reports
+     * @param sampleInterval
+     *          Report every sampleInterval-th generation, 1 reports all
+     * @param queueCapacity
+     *          Reports waiting for the writer before new ones are dropped
+     */
+    public ProgressReporter(OutputStream out, Verbosity verbosity, int sampleInterval, int queueCapacity) {
+        if (sampleInterval < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("sampleInterval and queueCapacity must be at least 1");
+        }
+        this.verbosity = verbosity;
+        this.sampleInterval = sampleInterval;
+        this.queue = new ArrayBlockingQueue<Snapshot>(queueCapacity);
+        this.out = new BufferedWriter(new OutputStreamWriter(out), 1 << 16);
+        this.writer = new Thread(this::drain, "progress-reporter");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void generationCompleted(GenerationMetrics metrics) {
+        this.lastMetrics = metrics;
+    }
+
+    /**
+     * Report a generation if it is sampled. Never blocks.
+     *
+     * @param generation
+     *          The generation number
+     * @param population
+     *          The evaluated population
+     */
+    public void report(int generation, Population population) {
+        if (this.verbosity == Verbosity.QUIET || generation % this.sampleInterval != 0) {
+            return;
+        }
+        Snapshot snapshot = this.snapshot(generation, population, null, this.verbosity.compareTo(Verbosity.BEST) >= 0);
+        if (!this.queue.offer(snapshot)) {
+            this.droppedReports++;
+        }
+    }
+
+    /**
+     * Report the final result regardless of sampling, then wait until
+     * everything queued so far has been written
+     *
+     * @param generation
+     *          The last generation number
+     * @param population
+     *          The final evaluated population
+     */
+    public void reportFinal(int generation, Population population) throws InterruptedException {
+        Snapshot snapshot = this.snapshot(generation, population, "BEST POPULATION", true);
+        snapshot.pending = true;
+        this.enqueueAndWait(snapshot);
+    }
+
+    /**
+     * Write a line of free text, such as a run header. Never blocks.
+     *
+     * @param message
+     *          The text, a line break is added
+     */
+    public void message(String message) {
+        Snapshot snapshot = new Snapshot();
+        snapshot.message = message;
+        if (!this.queue.offer(snapshot)) {
+            this.droppedReports++;
+        }
+    }
+
+    /**
+     * Get the number of reports dropped because the writer fell behind
+     *
+     * @return The dropped report count
+     */
+    public long getDroppedReports() {
+        return this.droppedReports;
+    }
+
+    /**
+     * Write everything still queued and stop the writer thread
+     *
+     * @throws IOException
+     *          If the writer thread failed to write a report
+     */
+    @Override
+    public void close() throws IOException {
+        if (!this.closed) {
+            this.closed = true;
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    this.queue.put(END);
+                    this.writer.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (this.failure != null) {
+            throw this.failure;
+        }
+    }
+
+    /**
+     * Copy what the verbosity needs out of the population. Chromosomes are
+     * copied as packed words, the strings are built by the writer.
+     */
+    private Snapshot snapshot(int generation, Population population, String title, boolean withBest) {
+        Snapshot snapshot = new Snapshot();
+        GenerationMetrics metrics = this.lastMetrics;
+        if (metrics != null && metrics.getGeneration() == generation) {
+            snapshot.summary = metrics.getSummary();
+            if (this.verbosity.compareTo(Verbosity.METRICS) >= 0) {
+                snapshot.metrics = metrics;
+            }
+        } else {
+            snapshot.summary = GenerationSummary.of(generation, population);
+        }
+        snapshot.title = title;
+        Individual best = population.getFittest(0);
+        snapshot.chromosomeLength = best.getChromosomeLength();
+        snapshot.bestFitness = best.getFitness();
+        snapshot.bestVolumne = best.getVolume();
+        if (withBest) {
+            snapshot.bestWords = best.getChromosomeWords().clone();
+        }
+        if (this.verbosity == Verbosity.POPULATION) {
+            int size = population.size();
+            snapshot.words = new long[size][];
+            snapshot.fitness = new int[size];
+            snapshot.volumnes = new int[size];
+            for (int i = 0; i < size; i++) {
+                Individual individual = population.getIndividual(i);
+                snapshot.words[i] = individual.getChromosomeWords().clone();
+                snapshot.fitness[i] = individual.getFitness();
+                snapshot.volumnes[i] = individual.getVolume();
+            }
+        }
+        return snapshot;
+    }
+
+    private void enqueueAndWait(Snapshot snapshot) throws InterruptedException {
+        synchronized (snapshot) {
+            this.queue.put(snapshot);
+            while (snapshot.pending) {
+                snapshot.wait();
+            }
+        }
+    }
+
+    /**
+     * Writer thread: format and write snapshots, flushing whenever the
+     * queue runs empty
+     */
+    private void drain() {
+        StringBuilder text = new StringBuilder(1 << 12);
+        try {
+            while (true) {
+                Snapshot snapshot = this.queue.take();
+                if (snapshot == END) {
+                    break;
+                }
+                text.setLength(0);
+                format(text, snapshot);
+                if (this.failure == null) {
+                    try {
+                        this.out.append(text);
+                        if (snapshot.pending || this.queue.isEmpty()) {
+                            this.out.flush();
+                        }
+                    } catch (IOException e) {
+                        this.failure = e;
+                    }
+                }
+                if (snapshot.pending) {
+                    synchronized (snapshot) {
+                        snapshot.pending = false;
+                        snapshot.notifyAll();
+                    }
+                }
+            }
+            if (this.failure == null) {
+                this.out.flush();
+            }
+        } catch (InterruptedException e) {
+            // Daemon thread, the JVM is going away
+        } catch (IOException e) {
+            this.failure = e;
+        }
+    }
+
+    private static void format(StringBuilder text, Snapshot snapshot) {
+        if (snapshot.message != null) {
+            text.append(snapshot.message).append('\n');
+            return;
+        }
+        if (snapshot.title != null) {
+            text.append(snapshot.title).append('\n');
+        }
+        if (snapshot.words != null) {
+            for (int i = 0; i < snapshot.words.length; i++) {
+                Individual.appendChromosome(text, snapshot.words[i], snapshot.chromosomeLength)
+                          .append("  Fitness: ").append(snapshot.fitness[i])
+                          .append("   Volumne: ").append(snapshot.volumnes[i]).append(" \n");
+            }
+        }
+        text.append(snapshot.metrics != null ? snapshot.metrics.toString() : snapshot.summary.toString()).append('\n');
+        if (snapshot.bestWords != null) {
+            text.append(snapshot.title != null ? "BEST SOLUTION: " : "Best solution so far: ");
+            Individual.appendChromosome(text, snapshot.bestWords, snapshot.chromosomeLength)
+                      .append(" Fit: ").append(snapshot.bestFitness)
+                      .append("  Vol: ").append(snapshot.bestVolumne).append('\n');
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package evolutionarycomputation;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A seedable source of random numbers for the genetic operators.
+ *
+ * Implementations are not thread safe. A thread that needs its own
+ * generator takes one with split(), which is cheap and gives a stream
+ * independent of the parent's, also when the child is split again.
+ *
+ * @author Ziheng Cong
+ */
+
+public interface RandomSource {
+
+    /**
+     * @return The next 64 random bits
+     */
+    long nextLong();
+
+    /**
+     * Split off an independent generator, advancing this one
+     *
+     * @return A new generator for another thread or task
+     */
+    RandomSource split();
+
+    /**
+     * Copy out the generator state, for checkpoints
+     *
+     * @return The state words, setState with them resumes the sequence
+     */
+    long[] getState();
+
+    /**
+     * Restore a state returned by getState of the same kind of generator
+     *
+     * @param state
+     *          The state words
+     */
+    void setState(long[] state);
+
+    /**
+     * @return A uniform double in [0, 1)
+     */
+    default double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Uniform int in [0, bound) by Lemire's multiply-and-reject method
+     *
+     * @param bound
+     *          The exclusive upper bound, must be positive
+     * @return The random int
+     */
+    default int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive");
+        }
+        long product = (nextLong() >>> 32) * bound;
+        long low = product & 0xffffffffL;
+        if (low < bound) {
+            long threshold = (0x100000000L - bound) % bound;
+            while (low < threshold) {
+                product = (nextLong() >>> 32) * bound;
+                low = product & 0xffffffffL;
+            }
+        }
+        return (int) (product >>> 32);
+    }
+
+    /**
+     * Generator for callers that did not ask for a seed. Every call returns
+     * a differently seeded generator, even when called in the same nanosecond.
+     *
+     * @return A new generator
+     */
+    static RandomSource unseeded() {
+        return new Xoshiro256StarStar(SeedUniquifier.next() ^ System.nanoTime());
+    }
+
+    /**
+     * Seed sequence shared by unseeded() generators
+     */
+    final class SeedUniquifier {
+        private static final AtomicLong SEED = new AtomicLong(0x2545F4914F6CDD1DL);
+
+        private SeedUniquifier() {
+        }
+
+        static long next() {
+            return SEED.getAndAdd(0x9E3779B97F4A7C15L);
+        }
+    }
+}
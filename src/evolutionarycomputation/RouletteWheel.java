@@ -0,0 +1,67 @@
+package evolutionarycomputation;
+
+/**
+ * Roulette wheel over a population's normalized fitness.
+ *
+ * build() lays out the cumulative normalized fitness once per generation,
+ * after which each spin is a binary search, O(log n) instead of a linear
+ * scan. The table is reused between generations and only grows.
+ *
+ * @author Ziheng Cong
+ */
+
+public final class RouletteWheel {
+    private double[] cumulative = new double[0]; // Cumulative normalized fitness per individual
+    private int size;
+    private boolean uniform; // True when no individual has any fitness
+
+    /**
+     * Lay out the wheel for the current order and fitness of a population
+     *
+     * @param population
+     *              An evaluated population
+     */
+    public void build(Population population) {
+        Individual[] individuals = population.getIndividuals();
+        this.size = population.size();
+        if (this.cumulative.length < this.size) {
+            this.cumulative = new double[this.size];
+        }
+        // A population without fitness has no wedges, every individual is then equally likely
+        this.uniform = !(population.getPopulationFitness() > 0);
+        double cumFitness = 0.0;
+        for (int i = 0; i < this.size; i++) {
+            if (!this.uniform) {
+                cumFitness += individuals[i].getNormalizedFitness();
+            }
+            this.cumulative[i] = cumFitness;
+        }
+    }
+
+    /**
+     * Spin the wheel
+     *
+     * @param random
+     *          The random source
+     * @return The index of the individual the wheel stops on
+     */
+    public int spin(RandomSource random) {
+        if (this.uniform) {
+            return random.nextInt(this.size);
+        }
+        double position = random.nextDouble();
+        // First wedge whose cumulative fitness reaches the position
+        int low = 0;
+        int high = this.size - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (this.cumulative[mid] >= position) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        // Rounding can leave the total just below the position, then the last individual is chosen
+        return low;
+    }
+}
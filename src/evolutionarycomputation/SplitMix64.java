@@ -0,0 +1,58 @@
+package evolutionarycomputation;
+
+/**
+ * SplitMix64 generator: a 64-bit counter with a strong output mix.
+ * Small and fast, also used to expand one seed into the state of larger
+ * generators.
+ *
+ * @author Ziheng Cong
+ */
+
+public final class SplitMix64 implements RandomSource {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private long state;
+
+    /**
+     * @param seed
+     *          The initial state
+     */
+    public SplitMix64(long seed) {
+        this.state = seed;
+    }
+
+    @Override
+    public long nextLong() {
+        this.state += GOLDEN_GAMMA;
+        return mix(this.state);
+    }
+
+    @Override
+    public RandomSource split() {
+        return new SplitMix64(mix(nextLong()));
+    }
+
+    @Override
+    public long[] getState() {
+        return new long[] {this.state};
+    }
+
+    @Override
+    public void setState(long[] state) {
+        if (state.length != 1) {
+            throw new IllegalArgumentException("SplitMix64 has one state word");
+        }
+        this.state = state[0];
+    }
+
+    /**
+     * The SplitMix64 output function, a bijective 64-bit mix
+     *
+     * @param z
+     * @return The mixed value
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
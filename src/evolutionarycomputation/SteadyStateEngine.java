@@ -0,0 +1,269 @@
+package evolutionarycomputation;
+
+import java.util.function.Consumer;
+
+/**
+ * Steady-state (mu + lambda) evolution over one population that is never
+ * rebuilt. Each step breeds lambda offspring from tournament-selected
+ * parents, with the crossover and mutation of the GeneticAlgorithm given,
+ * and evaluates them. Every offspring then replaces the current worst
+ * member if it is strictly fitter, otherwise it is discarded.
+ *
+ * The members are kept in an indexed min-heap on fitness, so the worst one
+ * is found in O(1) and a replacement costs O(log mu). Replaced individuals
+ * become the offspring buffers of the next step, so once the engine is
+ * built a step allocates nothing.
+ * The best member can only improve, so elitism is implicit.
+ *
+ * @author Ziheng Cong
+ */
+
+public class SteadyStateEngine {
+    private final GeneticAlgorithm ga;
+    private final Population population;
+    private final Individual[] members; // The population's individuals array
+    private final Individual[] offspring; // Buffers the lambda offspring are bred into
+    private final int[] heap; // Member slots, the least fit at the root
+    private final int[] heapPosition; // Heap position of each slot
+    private int bestSlot;
+    private long steps = 0;
+    private long evaluations = 0;
+    private long replacements = 0;
+    private Consumer<Individual> improvementListener; // Null when nobody is told of a new best
+
+    /**
+     * Initializes the engine over a population it then owns
+     *
+     * @param ga
+     *          The genetic algorithm supplying operators, rates, evaluation and random source
+     * @param initial
+     *          The first population, mu individuals; evaluated by the engine
+     * @param lambda
+     *          The number of offspring bred per step
+     */
+    public SteadyStateEngine(GeneticAlgorithm ga, Population initial, int lambda) {
+        if (lambda < 1) {
+            throw new IllegalArgumentException("lambda must be at least 1");
+        }
+        if (initial.size() < 1) {
+            throw new IllegalArgumentException("the population is empty");
+        }
+        this.ga = ga;
+        this.population = initial;
+        this.ga.evalPopulation(this.population);
+        this.members = initial.getIndividuals();
+        this.offspring = new Individual[lambda];
+        for (int i = 0; i < lambda; i++) {
+            this.offspring[i] = new Individual(this.members[i % this.members.length]);
+        }
+        int size = this.members.length;
+        this.heap = new int[size];
+        this.heapPosition = new int[size];
+        this.bestSlot = 0;
+        for (int slot = 0; slot < size; slot++) {
+            this.heap[slot] = slot;
+            this.heapPosition[slot] = slot;
+            if (this.members[slot].getFitness() > this.members[this.bestSlot].getFitness()) {
+                this.bestSlot = slot;
+            }
+        }
+        // Bottom-up heap construction, O(mu)
+        for (int position = size / 2 - 1; position >= 0; position--) {
+            this.siftDown(position);
+        }
+    }
+
+    /**
+     * Be told whenever an offspring becomes the new best member
+     *
+     * @param listener
+     *          Called on the stepping thread with the new best, null for none
+     */
+    public void setImprovementListener(Consumer<Individual> listener) {
+        this.improvementListener = listener;
+    }
+
+    /**
+     * Breed and evaluate lambda offspring, then let each replace the worst
+     * member if it is fitter. All offspring of a step are bred from the
+     * population as it was before the step.
+     *
+     * @return The number of offspring that entered the population
+     */
+    public int step() {
+        RandomSource random = this.ga.getRandomSource();
+        double crossoverRate = this.ga.getCrossoverRate();
+        for (Individual child : this.offspring) {
+            child.copyFrom(this.ga.selectParent(this.population, random));
+            if (crossoverRate > random.nextDouble()) {
+                this.ga.crossoverInto(child, this.ga.selectParent(this.population, random), random);
+            }
+            this.ga.mutateIndividual(child, random);
+            // Offspring left unchanged or found in the cache cost no evaluation
+            if (this.ga.evalIndividual(child)) {
+                this.evaluations++;
+            }
+        }
+        int entered = 0;
+        for (int i = 0; i < this.offspring.length; i++) {
+            Individual child = this.offspring[i];
+            int worstSlot = this.heap[0];
+            if (child.getFitness() <= this.members[worstSlot].getFitness()) {
+                continue;
+            }
+            // The evicted member becomes an offspring buffer
+            this.offspring[i] = this.members[worstSlot];
+            this.members[worstSlot] = child;
+            this.siftDown(0);
+            entered++;
+            if (child.getFitness() > this.members[this.bestSlot].getFitness()) {
+                this.bestSlot = worstSlot;
+                if (this.improvementListener != null) {
+                    this.improvementListener.accept(child);
+                }
+            }
+        }
+        if (entered > 0) {
+            this.population.invalidateRanking();
+        }
+        this.replacements += entered;
+        this.steps++;
+        return entered;
+    }
+
+    /**
+     * Put an individual into a given slot, such as an arriving migrant,
+     * and restore the heap from that slot's position
+     *
+     * @param slot
+     *          The slot to overwrite
+     * @param individual
+     *          The new member, evaluated here if it is dirty
+     */
+    public void setMember(int slot, Individual individual) {
+        this.ga.evalIndividual(individual);
+        int previousFitness = this.members[slot].getFitness();
+        this.members[slot] = individual;
+        this.population.invalidateRanking();
+        int position = this.heapPosition[slot];
+        if (individual.getFitness() < previousFitness) {
+            this.siftUp(position);
+        } else {
+            this.siftDown(position);
+        }
+        if (individual.getFitness() > this.members[this.bestSlot].getFitness()) {
+            this.bestSlot = slot;
+        } else if (slot == this.bestSlot && individual.getFitness() < previousFitness) {
+            // The best was overwritten by a weaker one, O(mu) rescan
+            for (int other = 0; other < this.members.length; other++) {
+                if (this.members[other].getFitness() > this.members[this.bestSlot].getFitness()) {
+                    this.bestSlot = other;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the population, with its population and normalized fitness
+     * brought up to date. The individuals stay owned by the engine, copy
+     * any that has to outlive the next step.
+     *
+     * @return The evaluated population
+     */
+    public Population getPopulation() {
+        this.population.updateFromStoredFitness();
+        return this.population;
+    }
+
+    /**
+     * Get the fittest member
+     *
+     * @return The best individual found so far
+     */
+    public Individual getBest() {
+        return this.members[this.bestSlot];
+    }
+
+    /**
+     * Get the fittest member's fitness without touching the heap
+     *
+     * @return The best fitness found so far
+     */
+    public int getBestFitness() {
+        return this.members[this.bestSlot].getFitness();
+    }
+
+    /**
+     * Get the least fit member, the next one to be replaced
+     *
+     * @return The worst fitness of the population
+     */
+    public int getWorstFitness() {
+        return this.members[this.heap[0]].getFitness();
+    }
+
+    public long getSteps() {
+        return this.steps;
+    }
+
+    public long getEvaluations() {
+        return this.evaluations;
+    }
+
+    public long getReplacements() {
+        return this.replacements;
+    }
+
+    /**
+     * Whether the member at slot a ranks below the one at slot b: lower
+     * fitness, ties broken by slot so a seeded run is reproducible
+     */
+    private boolean less(int a, int b) {
+        int fitnessA = this.members[a].getFitness();
+        int fitnessB = this.members[b].getFitness();
+        return fitnessA < fitnessB || (fitnessA == fitnessB && a < b);
+    }
+
+    /**
+     * Move the slot at a heap position up until its parent ranks below it
+     */
+    private void siftUp(int position) {
+        int slot = this.heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!this.less(slot, this.heap[parent])) {
+                break;
+            }
+            this.heap[position] = this.heap[parent];
+            this.heapPosition[this.heap[position]] = position;
+            position = parent;
+        }
+        this.heap[position] = slot;
+        this.heapPosition[slot] = position;
+    }
+
+    /**
+     * Move the slot at a heap position down until both children rank above it
+     */
+    private void siftDown(int position) {
+        int size = this.heap.length;
+        int slot = this.heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && this.less(this.heap[child + 1], this.heap[child])) {
+                child++;
+            }
+            if (!this.less(this.heap[child], slot)) {
+                break;
+            }
+            this.heap[position] = this.heap[child];
+            this.heapPosition[this.heap[position]] = position;
+            position = child;
+        }
+        this.heap[position] = slot;
+        this.heapPosition[slot] = position;
+    }
+}
@@ -0,0 +1,64 @@
+package evolutionarycomputation;
+
+/**
+ * xoshiro256** generator, the default random source of the genetic
+ * algorithm. split() seeds the child from this generator's next output,
+ * expanded with SplitMix64 like any seed. The child therefore starts at an
+ * unrelated point of the 2^256 - 1 period however deeply splits nest, where
+ * handing out the state and jumping ahead would give a child's child the
+ * stream of the child's next sibling.
+ *
+ * @author Ziheng Cong
+ */
+
+public final class Xoshiro256StarStar implements RandomSource {
+    private long s0, s1, s2, s3;
+
+    /**
+     * Initializes the state from a seed expanded with SplitMix64
+     *
+     * @param seed
+     *          The seed of the generator
+     */
+    public Xoshiro256StarStar(long seed) {
+        SplitMix64 expander = new SplitMix64(seed);
+        this.s0 = expander.nextLong();
+        this.s1 = expander.nextLong();
+        this.s2 = expander.nextLong();
+        this.s3 = expander.nextLong();
+    }
+
+    @Override
+    public long nextLong() {
+        long result = Long.rotateLeft(this.s1 * 5, 7) * 9;
+        long t = this.s1 << 17;
+        this.s2 ^= this.s0;
+        this.s3 ^= this.s1;
+        this.s1 ^= this.s2;
+        this.s0 ^= this.s3;
+        this.s2 ^= t;
+        this.s3 = Long.rotateLeft(this.s3, 45);
+        return result;
+    }
+
+    @Override
+    public RandomSource split() {
+        return new Xoshiro256StarStar(this.nextLong());
+    }
+
+    @Override
+    public long[] getState() {
+        return new long[] {this.s0, this.s1, this.s2, this.s3};
+    }
+
+    @Override
+    public void setState(long[] state) {
+        if (state.length != 4 || (state[0] | state[1] | state[2] | state[3]) == 0) {
+            throw new IllegalArgumentException("xoshiro256** needs four state words, not all zero");
+        }
+        this.s0 = state[0];
+        this.s1 = state[1];
+        this.s2 = state[2];
+        this.s3 = state[3];
+    }
+}
@@ -0,0 +1,149 @@
+package evolutionarycomputation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.OptionalLong;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Instance and checkpoint files written and read back
+ *
+ * @author Ziheng Cong
+ */
+
+public class BinaryFormatTest {
+    private Path directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        this.directory = Files.createTempDirectory("binaryformat");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.list(this.directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(this.directory);
+    }
+
+    private static ItemCatalog catalog(int numItems) {
+        RandomSource random = new Xoshiro256StarStar(13L);
+        int[] volumnes = new int[numItems];
+        int[] benefits = new int[numItems];
+        for (int item = 0; item < numItems; item++) {
+            volumnes[item] = 1 + random.nextInt(20);
+            benefits[item] = 1 + random.nextInt(20);
+        }
+        return new ItemCatalog(volumnes, benefits);
+    }
+
+    private static GeneticAlgorithm ga(ItemCatalog catalog, ForkJoinPool pool) {
+        GeneticAlgorithm ga = new GeneticAlgorithm(60, 0.01, 0.7, 2, (int) (catalog.getTotalVolumne() / 2), 30,
+                                                   catalog, catalog.size(), 99L);
+        ga.setGenerationHistory(GenerationHistory.none(false));
+        if (pool != null) {
+            ga.setParallelBreeding(pool);
+        }
+        return ga;
+    }
+
+    private static void assertSamePopulation(Population expected, Population actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.getIndividual(i).getChromosomeWords(), actual.getIndividual(i).getChromosomeWords());
+            assertEquals(expected.getIndividual(i).getFitness(), actual.getIndividual(i).getFitness());
+            assertEquals(expected.getIndividual(i).getVolume(), actual.getIndividual(i).getVolume());
+        }
+    }
+
+    @Test
+    public void instanceSurvivesARoundTrip() throws IOException {
+        ItemCatalog catalog = catalog(77);
+        Path file = this.directory.resolve("items.kcat");
+        BinaryFormat.writeInstance(file, new KnapsackInstance("items", catalog, 345, OptionalLong.of(678)));
+        KnapsackInstance read = BinaryFormat.readInstance(file);
+        assertArrayEquals(catalog.volumnes(), read.getCatalog().volumnes());
+        assertArrayEquals(catalog.benefits(), read.getCatalog().benefits());
+        assertEquals(345, read.getKnapsackCapacity());
+        assertEquals(OptionalLong.of(678), read.getOptimum());
+    }
+
+    @Test
+    public void checkpointKeepsGenesStateAndSharing() throws IOException {
+        ItemCatalog catalog = catalog(130);
+        RandomSource random = new Xoshiro256StarStar(21L);
+        Population population = new Population(6, catalog.size(), 700, catalog, random);
+        population.evaluate(catalog);
+        // Slots 3 and 4 share slot 1's chromosome, slot 5 shares slot 0's
+        population.setIndividual(3, population.getIndividual(1).share());
+        population.setIndividual(4, population.getIndividual(3).share());
+        population.setIndividual(5, population.getIndividual(0).share());
+        RandomSource[] streams = {random.split(), random.split()};
+        Path file = this.directory.resolve("run.kchk");
+
+        BinaryFormat.writeCheckpoint(file, 12, population, catalog, 700, random, streams);
+        BinaryFormat.Checkpoint checkpoint = BinaryFormat.readCheckpoint(file, catalog);
+
+        assertEquals(12, checkpoint.generation);
+        assertEquals(700, checkpoint.knapsackCapacity);
+        assertArrayEquals(random.getState(), checkpoint.randomState);
+        assertEquals(streams.length, checkpoint.streamStates.length);
+        for (int chunk = 0; chunk < streams.length; chunk++) {
+            assertArrayEquals(streams[chunk].getState(), checkpoint.streamStates[chunk]);
+        }
+        Population read = checkpoint.population;
+        assertSamePopulation(population, read);
+        for (int i = 0; i < population.size(); i++) {
+            for (int j = 0; j < population.size(); j++) {
+                boolean shared = population.getIndividual(i).getChromosomeWords()
+                                 == population.getIndividual(j).getChromosomeWords();
+                assertEquals(shared, read.getIndividual(i).getChromosomeWords() == read.getIndividual(j).getChromosomeWords());
+            }
+        }
+        // Writing one restored slot leaves the slots it shared with alone
+        long[] genes = read.getIndividual(1).getChromosomeWords().clone();
+        read.getIndividual(4).flipGenes(0, 1L);
+        assertArrayEquals(genes, read.getIndividual(1).getChromosomeWords());
+        assertArrayEquals(genes, read.getIndividual(3).getChromosomeWords());
+    }
+
+    @Test
+    public void resumedRunsBreedTheSameGenerations() throws IOException {
+        ItemCatalog catalog = catalog(300);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            for (ForkJoinPool breeding : new ForkJoinPool[]{null, pool}) {
+                Path file = this.directory.resolve(breeding == null ? "sequential.kchk" : "parallel.kchk");
+                GeneticAlgorithm original = ga(catalog, breeding);
+                original.setCheckpointing(file, 10);
+                Population population = original.initPopulation(catalog.size());
+                original.evalPopulation(population);
+                for (int generation = 0; generation < 25; generation++) {
+                    population = original.nextGeneration(population);
+                }
+
+                GeneticAlgorithm resumed = ga(catalog, breeding);
+                Population continued = resumed.resume(file);
+                assertEquals(20, resumed.getGenerationsBred());
+                while (resumed.getGenerationsBred() < 25) {
+                    continued = resumed.nextGeneration(continued);
+                }
+                assertSamePopulation(population, continued);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
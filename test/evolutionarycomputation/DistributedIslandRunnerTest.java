@@ -0,0 +1,112 @@
+package evolutionarycomputation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * A coordinator and island processes run as threads of this JVM, talking
+ * over 127.0.0.1
+ *
+ * @author Ziheng Cong
+ */
+
+public class DistributedIslandRunnerTest {
+
+    private static ItemCatalog catalog() {
+        RandomSource random = new Xoshiro256StarStar(5L);
+        int[] volumnes = new int[200];
+        int[] benefits = new int[200];
+        for (int item = 0; item < volumnes.length; item++) {
+            volumnes[item] = 1 + random.nextInt(10);
+            benefits[item] = 1 + random.nextInt(10);
+        }
+        return new ItemCatalog(volumnes, benefits);
+    }
+
+    private static DistributedIslandRunner runner(ItemCatalog catalog, int islandCount, int knapsackCapacity) {
+        return new DistributedIslandRunner(islandCount, 30, 0.01, 0.7, 1, knapsackCapacity, catalog, 17L,
+                                           IslandModel.Topology.RING, 5, 3, 40);
+    }
+
+    /**
+     * Connect an island to the coordinator and run it on the executor
+     */
+    private static Future<?> island(ExecutorService executor, InetSocketAddress address, int island) {
+        return executor.submit(() -> {
+            try (SocketChannel channel = SocketChannel.open(address)) {
+                new IslandProcess(channel, island).run();
+            }
+            return null;
+        });
+    }
+
+    @Test(timeout = 60000)
+    public void twoIslandsReportTheirBest() throws Exception {
+        ItemCatalog catalog = catalog();
+        int knapsackCapacity = (int) (catalog.getTotalVolumne() / 2);
+        DistributedIslandRunner runner = runner(catalog, 2, knapsackCapacity);
+        InetSocketAddress address = runner.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<?>> islands = new ArrayList<Future<?>>();
+            for (int island = 0; island < 2; island++) {
+                islands.add(island(executor, address, island));
+            }
+            Individual best = runner.coordinate(30000);
+            for (Future<?> island : islands) {
+                island.get(30, TimeUnit.SECONDS); // Rethrows an island's failure
+            }
+
+            assertNotNull(best);
+            assertTrue(runner.getBestIsland() == 0 || runner.getBestIsland() == 1);
+            Individual check = new Individual(best);
+            check.invalidateEvaluation();
+            check.evaluate(catalog);
+            assertEquals(check.getFitness(), best.getFitness());
+            assertTrue(best.getVolume() <= knapsackCapacity);
+            assertTrue(best.getFitness() > 0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void framesBeforeHelloCloseTheConnection() throws Exception {
+        ItemCatalog catalog = catalog();
+        DistributedIslandRunner runner = runner(catalog, 1, (int) (catalog.getTotalVolumne() / 2));
+        InetSocketAddress address = runner.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        ExecutorService executor = Executors.newFixedThreadPool(1);
+        try (SocketChannel rogue = SocketChannel.open(address)) {
+            Future<Individual> coordinator = executor.submit(() -> runner.coordinate(30000));
+            Individual stranger = new Individual(catalog.size(), 0);
+            ByteBuffer frame = MigrantCodec.encodeMigrants(0, new Individual[]{stranger});
+            while (frame.hasRemaining()) {
+                rogue.write(frame);
+            }
+            // The coordinator drops the connection rather than relaying the migrants
+            assertEquals(-1, rogue.read(ByteBuffer.allocate(16)));
+
+            try (SocketChannel channel = SocketChannel.open(address)) {
+                new IslandProcess(channel, 0).run();
+            }
+            assertNotNull(coordinator.get(30, TimeUnit.SECONDS));
+            assertEquals(0, runner.getBestIsland());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package evolutionarycomputation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Dynamic programming and branch-and-bound against brute force on small
+ * instances, zero volumnes and zero benefits included
+ *
+ * @author Ziheng Cong
+ */
+
+public class ExactSolverTest {
+
+    /**
+     * Best benefit over every subset of the items
+     */
+    private static int bruteForce(ItemCatalog catalog, int knapsackCapacity) {
+        int best = 0;
+        for (int subset = 0; subset < 1 << catalog.size(); subset++) {
+            long volumne = 0;
+            int benefit = 0;
+            for (int item = 0; item < catalog.size(); item++) {
+                if ((subset >>> item & 1) != 0) {
+                    volumne += catalog.getVolumne(item);
+                    benefit += catalog.getBenefit(item);
+                }
+            }
+            if (volumne <= knapsackCapacity && benefit > best) {
+                best = benefit;
+            }
+        }
+        return best;
+    }
+
+    private static void assertOptimal(ItemCatalog catalog, int knapsackCapacity) {
+        int optimum = bruteForce(catalog, knapsackCapacity);
+        ExactSolver solver = new ExactSolver(catalog, knapsackCapacity);
+        assertEquals(optimum, solver.optimalBenefit());
+
+        Individual dynamic = solver.solveByDynamicProgramming();
+        assertEquals(optimum, dynamic.getFitness());
+        assertTrue(dynamic.getVolume() <= knapsackCapacity);
+
+        Individual branched = solver.solveByBranchAndBound();
+        assertTrue(solver.isLastSearchComplete());
+        assertEquals(optimum, branched.getFitness());
+        assertTrue(branched.getVolume() <= knapsackCapacity);
+    }
+
+    @Test
+    public void zeroVolumneItemsDoNotBreakTheRatioOrder() {
+        ItemCatalog catalog = new ItemCatalog(new int[]{1, 0, 7, 9, 7, 0, 7, 2, 5, 7, 5},
+                                              new int[]{3, 11, 4, 9, 11, 0, 10, 10, 6, 7, 0});
+        assertOptimal(catalog, 23);
+    }
+
+    @Test
+    public void randomInstancesMatchBruteForce() {
+        RandomSource random = new Xoshiro256StarStar(2020L);
+        for (int instance = 0; instance < 3000; instance++) {
+            int numItems = random.nextInt(13);
+            int[] volumnes = new int[numItems];
+            int[] benefits = new int[numItems];
+            for (int item = 0; item < numItems; item++) {
+                volumnes[item] = random.nextInt(10); // 0 included
+                benefits[item] = random.nextInt(12);
+            }
+            assertOptimal(new ItemCatalog(volumnes, benefits), random.nextInt(40));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package evolutionarycomputation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Cached evaluations against direct ones, with a cache small enough to
+ * evict all the time
+ *
+ * @author Ziheng Cong
+ */
+
+public class FitnessCacheTest {
+
+    @Test
+    public void cachedEvaluationsMatchDirectOnes() {
+        RandomSource random = new Xoshiro256StarStar(11L);
+        int numItems = 100;
+        int[] volumnes = new int[numItems];
+        int[] benefits = new int[numItems];
+        for (int item = 0; item < numItems; item++) {
+            volumnes[item] = 1 + random.nextInt(50);
+            benefits[item] = random.nextInt(80);
+        }
+        ItemCatalog catalog = new ItemCatalog(volumnes, benefits);
+        int knapsackCapacity = 1200;
+        Individual[] pool = new Individual[40];
+        for (int i = 0; i < pool.length; i++) {
+            pool[i] = new Individual(numItems, knapsackCapacity, random);
+        }
+
+        FitnessCache cache = new FitnessCache(8, 2);
+        for (int round = 0; round < 5000; round++) {
+            Individual cached = new Individual(pool[random.nextInt(pool.length)]);
+            cached.invalidateEvaluation();
+            Individual direct = new Individual(cached);
+            cache.evaluate(cached, catalog);
+            direct.evaluate(catalog);
+            assertEquals(direct.getFitness(), cached.getFitness());
+            assertEquals(direct.getVolume(), cached.getVolume());
+        }
+        assertTrue(cache.getHits() > 0);
+        assertTrue(cache.getEvictions() > 0);
+    }
+}
@@ -0,0 +1,115 @@
+package evolutionarycomputation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+/**
+ * Seeded runs of the generation loop
+ *
+ * @author Ziheng Cong
+ */
+
+public class GeneticAlgorithmTest {
+
+    private static ItemCatalog catalog() {
+        RandomSource random = new Xoshiro256StarStar(8L);
+        int[] volumnes = new int[300];
+        int[] benefits = new int[300];
+        for (int item = 0; item < volumnes.length; item++) {
+            volumnes[item] = 1 + random.nextInt(10);
+            benefits[item] = 1 + random.nextInt(13);
+        }
+        return new ItemCatalog(volumnes, benefits);
+    }
+
+    /**
+     * Genes and fitness of every slot after a seeded run
+     */
+    private static long[][] run(ItemCatalog catalog, long seed, ForkJoinPool pool) {
+        // 500 individuals make several breeding chunks
+        GeneticAlgorithm ga = new GeneticAlgorithm(500, 0.01, 0.7, 2, 800, 30, catalog, catalog.size(), seed);
+        ga.setGenerationHistory(GenerationHistory.none(false));
+        ga.setParallelBreeding(pool);
+        Population population = ga.initPopulation(catalog.size());
+        ga.evalPopulation(population);
+        for (int generation = 0; generation < 30; generation++) {
+            population = ga.nextGeneration(population);
+        }
+        long[][] result = new long[population.size()][];
+        for (int i = 0; i < result.length; i++) {
+            Individual individual = population.getIndividual(i);
+            result[i] = Arrays.copyOf(individual.getChromosomeWords(), individual.getChromosomeWords().length + 1);
+            result[i][result[i].length - 1] = individual.getFitness();
+        }
+        return result;
+    }
+
+    @Test
+    public void parallelBreedingIsReproducibleForAnyThreadCount() {
+        ItemCatalog catalog = catalog();
+        long[][] expected = null;
+        for (int threads : new int[]{1, 2, 4, 7}) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                long[][] result = run(catalog, 42L, pool);
+                if (expected == null) {
+                    expected = result;
+                } else {
+                    assertEquals(expected.length, result.length);
+                    for (int i = 0; i < expected.length; i++) {
+                        assertArrayEquals(expected[i], result[i]);
+                    }
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertFalse(Arrays.deepEquals(expected, run(catalog, 43L, pool)));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void sequentialBreedingIsReproducible() {
+        ItemCatalog catalog = catalog();
+        long[][] first = run(catalog, 42L, null);
+        long[][] second = run(catalog, 42L, null);
+        for (int i = 0; i < first.length; i++) {
+            assertArrayEquals(first[i], second[i]);
+        }
+    }
+
+    @Test
+    public void mutationSparesExactlyTheElites() {
+        ItemCatalog catalog = catalog();
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            for (ForkJoinPool breeding : new ForkJoinPool[]{null, pool}) {
+                // A rate of 1 flips every gene outside the elite
+                GeneticAlgorithm ga = new GeneticAlgorithm(40, 1.0, 0.7, 3, 800, 1, catalog, catalog.size(), 11L);
+                ga.setParallelBreeding(breeding);
+                Population population = ga.initPopulation(catalog.size());
+                ga.evalPopulation(population);
+                long[][] genes = new long[population.size()][];
+                for (int rank = 0; rank < genes.length; rank++) {
+                    genes[rank] = population.getFittest(rank).getChromosomeWords().clone();
+                }
+                Population mutated = ga.mutatePopulation(population);
+                for (int rank = 0; rank < genes.length; rank++) {
+                    assertEquals(rank < 3, Arrays.equals(genes[rank], mutated.getIndividual(rank).getChromosomeWords()));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package evolutionarycomputation;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Repair of chromosomes that cannot be made to fit
+ *
+ * @author Ziheng Cong
+ */
+
+public class GreedyRepairTest {
+
+    @Test
+    public void negativeCapacityDropsEverything() {
+        ItemCatalog catalog = new ItemCatalog(new int[]{4, 7, 2}, new int[]{5, 3, 9});
+        Individual individual = new Individual(new long[]{0b111L}, 3, -1);
+        new GreedyRepair(catalog, -1, true).repair(individual);
+        assertEquals(0L, individual.getChromosomeWords()[0]);
+        assertEquals(0, individual.getVolume());
+        assertEquals(0, individual.getFitness());
+    }
+
+    @Test
+    public void negativeVolumnesThatStillOverflowScoreZero() {
+        ItemCatalog catalog = new ItemCatalog(new int[]{-5, 3, 8}, new int[]{1, 2, 4});
+        Individual individual = new Individual(new long[]{0b111L}, 3, -6);
+        new GreedyRepair(catalog, -6, false).repair(individual);
+        int volumne = 0;
+        for (int gene = 0; gene < 3; gene++) {
+            volumne += individual.getGene(gene) * catalog.getVolumne(gene);
+        }
+        assertEquals(volumne, individual.getVolume());
+        assertEquals(0, individual.getFitness());
+    }
+}
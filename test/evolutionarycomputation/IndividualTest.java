@@ -0,0 +1,155 @@
+package evolutionarycomputation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+/**
+ * Evaluation of bit-packed individuals against plain sums over their genes
+ *
+ * @author Ziheng Cong
+ */
+
+public class IndividualTest {
+    private static final int NUM_ITEMS = 150; // Three words, the last one partly used
+
+    private static ItemCatalog catalog(RandomSource random) {
+        int[] volumnes = new int[NUM_ITEMS];
+        int[] benefits = new int[NUM_ITEMS];
+        for (int item = 0; item < NUM_ITEMS; item++) {
+            volumnes[item] = 1 + random.nextInt(20);
+            benefits[item] = random.nextInt(30);
+        }
+        return new ItemCatalog(volumnes, benefits);
+    }
+
+    private static int volumneOf(Individual individual, ItemCatalog catalog) {
+        int volumne = 0;
+        for (int gene = 0; gene < individual.getChromosomeLength(); gene++) {
+            volumne += individual.getGene(gene) * catalog.getVolumne(gene);
+        }
+        return volumne;
+    }
+
+    private static int fitnessOf(Individual individual, ItemCatalog catalog) {
+        int benefit = 0;
+        for (int gene = 0; gene < individual.getChromosomeLength(); gene++) {
+            benefit += individual.getGene(gene) * catalog.getBenefit(gene);
+        }
+        return volumneOf(individual, catalog) <= individual.knapsackCapacity ? benefit : 0;
+    }
+
+    /**
+     * A fresh individual with the same genes, evaluated in one full pass
+     */
+    private static Individual fullyEvaluated(Individual individual, ItemCatalog catalog) {
+        Individual reference = new Individual(individual.getChromosomeWords().clone(),
+                                              individual.getChromosomeLength(), individual.knapsackCapacity);
+        reference.evaluate(catalog);
+        return reference;
+    }
+
+    /**
+     * Change some genes the ways the operators do
+     */
+    private static void change(Individual individual, Individual donor, RandomSource random) {
+        switch (random.nextInt(3)) {
+            case 0:
+                individual.setGene(random.nextInt(NUM_ITEMS), random.nextInt(2));
+                break;
+            case 1:
+                individual.flipGenes(random.nextInt(individual.getChromosomeWords().length),
+                                     random.nextLong() & random.nextLong());
+                break;
+            default:
+                int from = random.nextInt(NUM_ITEMS);
+                individual.copyGenes(donor, from, from + random.nextInt(NUM_ITEMS - from + 1));
+                break;
+        }
+    }
+
+    @Test
+    public void deltaEvaluationMatchesAFullPass() {
+        RandomSource random = new Xoshiro256StarStar(2L);
+        ItemCatalog catalog = catalog(random);
+        for (int knapsackCapacity : new int[]{800, 1600, 100000}) {
+            Individual individual = new Individual(NUM_ITEMS, knapsackCapacity, random);
+            individual.evaluate(catalog);
+            for (int round = 0; round < 2000; round++) {
+                // Some rounds go on through a shared or a copied individual
+                if (random.nextInt(4) == 0) {
+                    individual = individual.share();
+                } else if (random.nextInt(4) == 0) {
+                    individual = new Individual(individual);
+                }
+                Individual donor = new Individual(NUM_ITEMS, knapsackCapacity, random);
+                for (int changes = random.nextInt(4); changes >= 0; changes--) {
+                    change(individual, donor, random);
+                }
+                individual.evaluate(catalog);
+                Individual reference = fullyEvaluated(individual, catalog);
+                assertEquals(reference.getFitness(), individual.getFitness());
+                assertEquals(reference.getVolume(), individual.getVolume());
+            }
+        }
+    }
+
+    @Test
+    public void sharedChromosomesAreCopiedOnFirstWrite() {
+        RandomSource random = new Xoshiro256StarStar(3L);
+        ItemCatalog catalog = catalog(random);
+        Individual original = new Individual(NUM_ITEMS, 100000, random);
+        original.evaluate(catalog);
+        long[] genes = original.getChromosomeWords().clone();
+
+        Individual shared = original.share();
+        assertSame(original.getChromosomeWords(), shared.getChromosomeWords());
+        shared.flipGenes(2, 0L); // Nothing to flip, nothing copied
+        shared.flipGenes(2, -1L << NUM_ITEMS); // Only padding bits, ignored
+        assertSame(original.getChromosomeWords(), shared.getChromosomeWords());
+
+        shared.setGene(5, 1 - shared.getGene(5));
+        assertNotSame(original.getChromosomeWords(), shared.getChromosomeWords());
+        assertArrayEquals(genes, original.getChromosomeWords());
+        assertEquals(1 - original.getGene(5), shared.getGene(5));
+
+        // The original still believes it shares, its own first write copies too
+        Individual second = original.share();
+        original.flipGenes(0, 0xF0L);
+        assertArrayEquals(genes, second.getChromosomeWords());
+        second.copyFrom(original);
+        assertArrayEquals(original.getChromosomeWords(), second.getChromosomeWords());
+        assertNotSame(original.getChromosomeWords(), second.getChromosomeWords());
+
+        for (Individual individual : new Individual[]{original, shared, second}) {
+            individual.evaluate(catalog);
+            assertEquals(fitnessOf(individual, catalog), individual.getFitness());
+            assertEquals(volumneOf(individual, catalog), individual.getVolume());
+        }
+    }
+
+    @Test
+    public void overweightIndividualsKeepTheirFullVolumne() {
+        RandomSource random = new Xoshiro256StarStar(1L);
+        ItemCatalog catalog = catalog(random);
+        for (int i = 0; i < 200; i++) {
+            Individual individual = new Individual(NUM_ITEMS, 100, random); // About 1500 packed, mostly overweight
+            individual.evaluate(catalog);
+            assertEquals(volumneOf(individual, catalog), individual.getVolume());
+            assertEquals(fitnessOf(individual, catalog), individual.getFitness());
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void paddingGenesCannotBeSet() {
+        new Individual(NUM_ITEMS, 100).setGene(NUM_ITEMS, 1);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void paddingGenesCannotBeRead() {
+        new Individual(NUM_ITEMS, 100).getGene(NUM_ITEMS);
+    }
+}
@@ -0,0 +1,130 @@
+package evolutionarycomputation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.OptionalLong;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * A small fixture per instance format, detected and loaded
+ *
+ * @author Ziheng Cong
+ */
+
+public class InstanceLoaderTest {
+    private static final int[] VOLUMNES = {485, 326, 248, 421};
+    private static final int[] BENEFITS = {94, 506, 416, 992};
+
+    private Path directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        this.directory = Files.createTempDirectory("instanceloader");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.list(this.directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(this.directory);
+    }
+
+    private Path fixture(String name, String content) throws IOException {
+        return Files.write(this.directory.resolve(name), content.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void assertItems(KnapsackInstance instance, int knapsackCapacity, OptionalLong optimum) {
+        assertArrayEquals(VOLUMNES, instance.getCatalog().volumnes());
+        assertArrayEquals(BENEFITS, instance.getCatalog().benefits());
+        assertEquals(knapsackCapacity, instance.getKnapsackCapacity());
+        assertEquals(optimum, instance.getOptimum());
+    }
+
+    @Test
+    public void pisingerFileNamedCsv() throws IOException {
+        Path file = this.fixture("knapPI_1_4_1000_1.csv",
+                "knapPI_1_4_1000_1\n"
+                + "n 4\n"
+                + "c 995\n"
+                + "z 1914\n"
+                + "time 0.00\n"
+                + "1,94,485,0\n"
+                + "2,506,326,1\n"
+                + "3,416,248,1\n"
+                + "4,992,421,1\n"
+                + "-----\n"
+                + "\n"
+                + "knapPI_1_4_1000_2\n"
+                + "n 4\n"
+                + "c 10\n");
+        assertEquals(InstanceLoader.Format.PISINGER, InstanceLoader.detect(file));
+        KnapsackInstance instance = InstanceLoader.load(file);
+        assertEquals("knapPI_1_4_1000_1", instance.getName());
+        assertItems(instance, 995, OptionalLong.of(1914));
+    }
+
+    @Test
+    public void csvWithHeaderAndComments() throws IOException {
+        Path file = this.fixture("items.csv",
+                "# capacity=995\n"
+                + "# optimum: 1914\n"
+                + "id,profit,label,weight\n"
+                + "a,94,first,485\n"
+                + "b,506,second,326\n"
+                + "\n"
+                + "c,416,third,248\n"
+                + "d,992,fourth,421\n");
+        assertEquals(InstanceLoader.Format.CSV, InstanceLoader.detect(file));
+        assertItems(InstanceLoader.load(file), 995, OptionalLong.of(1914));
+    }
+
+    @Test
+    public void headerlessCsvWithCrLf() throws IOException {
+        Path file = this.fixture("items.csv",
+                "485,94\r\n"
+                + "326,506\r\n"
+                + "248,416\r\n"
+                + "421,992\r\n"
+                + "# capacity=995\r\n");
+        assertEquals(InstanceLoader.Format.CSV, InstanceLoader.detect(file));
+        assertItems(InstanceLoader.load(file), 995, OptionalLong.empty());
+    }
+
+    @Test
+    public void plainNumbers() throws IOException {
+        Path file = this.fixture("items.txt",
+                "4 995\n"
+                + "94 485\n"
+                + "506 326\n"
+                + "416 248\n"
+                + "992 421\n");
+        assertEquals(InstanceLoader.Format.PLAIN, InstanceLoader.detect(file));
+        assertItems(InstanceLoader.load(file), 995, OptionalLong.empty());
+    }
+
+    @Test
+    public void binaryInstance() throws IOException {
+        Path file = this.directory.resolve("items.kcat");
+        BinaryFormat.writeInstance(file, new KnapsackInstance("items", new ItemCatalog(VOLUMNES, BENEFITS), 995,
+                                                               OptionalLong.of(1914)));
+        assertEquals(InstanceLoader.Format.BINARY, InstanceLoader.detect(file));
+        assertItems(InstanceLoader.load(file), 995, OptionalLong.of(1914));
+    }
+
+    @Test(expected = IOException.class)
+    public void csvWithoutCapacityIsRejected() throws IOException {
+        InstanceLoader.load(this.fixture("items.csv", "485,94\n326,506\n"));
+    }
+}
@@ -0,0 +1,148 @@
+package evolutionarycomputation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+import org.junit.Test;
+
+/**
+ * Frames encoded, cut by the FrameReader from a channel delivering a few
+ * bytes at a time, and decoded again
+ *
+ * @author Ziheng Cong
+ */
+
+public class MigrantCodecTest {
+
+    /**
+     * Channel handing out the given frames a few bytes per read
+     */
+    private static final class TrickleChannel implements ReadableByteChannel {
+        private final ByteBuffer bytes;
+
+        TrickleChannel(ByteBuffer... frames) {
+            int size = 0;
+            for (ByteBuffer frame : frames) {
+                size += frame.remaining();
+            }
+            this.bytes = ByteBuffer.allocate(size);
+            for (ByteBuffer frame : frames) {
+                this.bytes.put(frame.duplicate());
+            }
+            this.bytes.flip();
+        }
+
+        @Override
+        public int read(ByteBuffer destination) {
+            if (!this.bytes.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(3, Math.min(destination.remaining(), this.bytes.remaining()));
+            for (int i = 0; i < count; i++) {
+                destination.put(this.bytes.get());
+            }
+            return count;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static ByteBuffer nextFrame(MigrantCodec.FrameReader reader, ReadableByteChannel channel) throws Exception {
+        ByteBuffer frame;
+        while ((frame = reader.next()) == null) {
+            if (!reader.read(channel)) {
+                return reader.next();
+            }
+        }
+        return frame;
+    }
+
+    @Test
+    public void framesSurviveARoundTrip() throws Exception {
+        ItemCatalog catalog = new ItemCatalog(new int[]{3, 1, 4, 1, 5}, new int[]{9, 2, 6, 5, 3});
+        MigrantCodec.Config config = new MigrantCodec.Config();
+        config.island = 2;
+        config.seed = -77L;
+        config.generations = 300;
+        config.populationSize = 40;
+        config.mutationRate = 0.015;
+        config.crossoverRate = 0.85;
+        config.elitismCount = 2;
+        config.knapsackCapacity = 9;
+        config.migrationInterval = 10;
+        config.migrantCount = 3;
+        config.catalog = catalog;
+
+        RandomSource random = new Xoshiro256StarStar(3L);
+        Individual[] migrants = new Individual[3];
+        for (int i = 0; i < migrants.length; i++) {
+            migrants[i] = new Individual(130, 9, random); // Three words, the last one partly used
+            migrants[i].setFitness(100 + i);
+            migrants[i].setVolume(7 - i);
+        }
+        Individual best = new Individual(migrants[1]);
+
+        TrickleChannel channel = new TrickleChannel(MigrantCodec.encodeHello(2), MigrantCodec.encodeConfig(config),
+                MigrantCodec.encodeMigrants(2, migrants), MigrantCodec.encodeBest(MigrantCodec.DONE, 2, 300, best));
+        MigrantCodec.FrameReader reader = new MigrantCodec.FrameReader();
+
+        ByteBuffer frame = nextFrame(reader, channel);
+        assertEquals(MigrantCodec.HELLO, frame.get());
+        assertEquals(2, frame.getInt());
+
+        frame = nextFrame(reader, channel);
+        assertEquals(MigrantCodec.CONFIG, frame.get());
+        MigrantCodec.Config decoded = MigrantCodec.decodeConfig(frame);
+        assertEquals(config.island, decoded.island);
+        assertEquals(config.seed, decoded.seed);
+        assertEquals(config.generations, decoded.generations);
+        assertEquals(config.populationSize, decoded.populationSize);
+        assertEquals(config.mutationRate, decoded.mutationRate, 0.0);
+        assertEquals(config.crossoverRate, decoded.crossoverRate, 0.0);
+        assertEquals(config.elitismCount, decoded.elitismCount);
+        assertEquals(config.knapsackCapacity, decoded.knapsackCapacity);
+        assertEquals(config.migrationInterval, decoded.migrationInterval);
+        assertEquals(config.migrantCount, decoded.migrantCount);
+        assertArrayEquals(catalog.volumnes(), decoded.catalog.volumnes());
+        assertArrayEquals(catalog.benefits(), decoded.catalog.benefits());
+
+        frame = nextFrame(reader, channel);
+        assertEquals(MigrantCodec.MIGRANTS, frame.get());
+        assertEquals(2, frame.getInt());
+        assertEquals(migrants.length, frame.getInt());
+        for (Individual migrant : migrants) {
+            Individual received = MigrantCodec.getIndividual(frame, 9);
+            assertEquals(migrant.getChromosomeLength(), received.getChromosomeLength());
+            assertArrayEquals(migrant.getChromosomeWords(), received.getChromosomeWords());
+            assertEquals(migrant.getFitness(), received.getFitness());
+            assertEquals(migrant.getVolume(), received.getVolume());
+        }
+
+        frame = nextFrame(reader, channel);
+        assertEquals(MigrantCodec.DONE, frame.get());
+        assertEquals(2, frame.getInt());
+        assertEquals(300, frame.getInt());
+        assertArrayEquals(best.getChromosomeWords(), MigrantCodec.getIndividual(frame, 9).getChromosomeWords());
+
+        assertNull(nextFrame(reader, channel));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void corruptLengthIsRejected() throws Exception {
+        ByteBuffer garbage = ByteBuffer.allocate(8);
+        garbage.putInt(-5).putInt(0).flip();
+        MigrantCodec.FrameReader reader = new MigrantCodec.FrameReader();
+        nextFrame(reader, new TrickleChannel(garbage));
+    }
+}
@@ -0,0 +1,44 @@
+package evolutionarycomputation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Bookkeeping of the steady-state steps
+ *
+ * @author Ziheng Cong
+ */
+
+public class SteadyStateEngineTest {
+
+    private static ItemCatalog catalog() {
+        RandomSource random = new Xoshiro256StarStar(6L);
+        int[] volumnes = new int[100];
+        int[] benefits = new int[100];
+        for (int item = 0; item < volumnes.length; item++) {
+            volumnes[item] = 1 + random.nextInt(10);
+            benefits[item] = 1 + random.nextInt(10);
+        }
+        return new ItemCatalog(volumnes, benefits);
+    }
+
+    private static long evaluationsOf(double mutationRate, double crossoverRate) {
+        ItemCatalog catalog = catalog();
+        GeneticAlgorithm ga = new GeneticAlgorithm(30, mutationRate, crossoverRate, 0, 300, 1, catalog, catalog.size(), 4L);
+        SteadyStateEngine engine = new SteadyStateEngine(ga, ga.initPopulation(catalog.size()), 8);
+        for (int step = 0; step < 50; step++) {
+            engine.step();
+        }
+        return engine.getEvaluations();
+    }
+
+    @Test
+    public void onlyChangedOffspringCountAsEvaluations() {
+        // Copies of their parent carry its fitness over
+        assertEquals(0, evaluationsOf(0.0, 0.0));
+        long evaluations = evaluationsOf(0.05, 0.9);
+        assertTrue(evaluations > 0 && evaluations <= 50 * 8);
+    }
+}
@@ -0,0 +1,60 @@
+package evolutionarycomputation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Streams split off xoshiro256**, at one level and nested as the island
+ * model and the parallel breeding do
+ *
+ * @author Ziheng Cong
+ */
+
+public class Xoshiro256StarStarTest {
+    private static final int PREFIX = 8; // Outputs compared of each stream
+
+    private static List<Long> prefix(RandomSource random) {
+        List<Long> prefix = new ArrayList<Long>();
+        for (int i = 0; i < PREFIX; i++) {
+            prefix.add(random.nextLong());
+        }
+        return prefix;
+    }
+
+    @Test
+    public void nestedSplitsGiveDistinctStreams() {
+        RandomSource seeds = new Xoshiro256StarStar(42L);
+        List<RandomSource> streams = new ArrayList<RandomSource>();
+        // Islands split off one seed stream, then each island splits its breeding streams
+        for (int island = 0; island < 4; island++) {
+            RandomSource islandStream = seeds.split();
+            for (int chunk = 0; chunk < 4; chunk++) {
+                RandomSource chunkStream = islandStream.split();
+                streams.add(chunkStream.split());
+                streams.add(chunkStream);
+            }
+            streams.add(islandStream);
+        }
+        streams.add(seeds);
+
+        Set<List<Long>> prefixes = new HashSet<List<Long>>();
+        for (RandomSource stream : streams) {
+            assertTrue("two split streams share a prefix", prefixes.add(prefix(stream)));
+        }
+    }
+
+    @Test
+    public void splittingIsReproducible() {
+        RandomSource a = new Xoshiro256StarStar(7L);
+        RandomSource b = new Xoshiro256StarStar(7L);
+        assertArrayEquals(a.split().split().getState(), b.split().split().getState());
+        assertArrayEquals(a.getState(), b.getState());
+    }
+}